@@ -0,0 +1,189 @@
+package org.senegas.ledstrip.app;
+
+import org.senegas.ledstrip.app.animation.AnimationEngine;
+import org.senegas.ledstrip.domain.effect.AbstractEffect;
+import org.senegas.ledstrip.domain.effect.EffectParameters;
+import org.senegas.ledstrip.domain.effect.ServiceLoaderEffectRegistry;
+import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.domain.led.LedStripController;
+import org.senegas.ledstrip.hardware.AnsiTerminalLedStripHardwareAdapter;
+import org.senegas.ledstrip.hardware.AsyncCompositeLedStripHardwareAdapter;
+import org.senegas.ledstrip.hardware.ColorOrder;
+import org.senegas.ledstrip.hardware.ConsoleLedStripHardwareAdapter;
+import org.senegas.ledstrip.hardware.LedStripHardwareAdapter;
+import org.senegas.ledstrip.hardware.NoopAdapter;
+import org.senegas.ledstrip.hardware.StreamLedStripHardwareAdapter;
+import org.senegas.ledstrip.hardware.UdpPixelLedStripHardwareAdapter;
+import org.senegas.ledstrip.recording.CompressedFrameWriter;
+import org.senegas.ledstrip.recording.MappedRecordingAdapter;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs an effect on a strip without any window, driving the adapters named
+ * by {@code --output}. Nothing here touches AWT or Swing, so the JVM can run
+ * with {@code -Djava.awt.headless=true} and never loads the GUI toolkit.
+ */
+final class HeadlessLedStripApp implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(HeadlessLedStripApp.class.getName());
+
+    private final List<AutoCloseable> outputs = new ArrayList<>();
+    private final AnimationEngine engine;
+    private boolean closed = false;
+
+    /**
+     * @throws IllegalArgumentException for an unknown effect or an invalid output, with no output left open
+     */
+    HeadlessLedStripApp(LaunchOptions options) {
+        // Before opening any output, so an unknown effect has nothing to close
+        AbstractEffect effect = findEffect(options.effect(), options.ledCount());
+        LedStrip strip = LedStrip.ofLength(options.ledCount());
+        List<LedStripHardwareAdapter> adapters = new ArrayList<>();
+        try {
+            for (String spec : options.outputs()) {
+                LedStripHardwareAdapter adapter = createOutput(spec, options.ledCount(), options.colorOrder());
+                adapters.add(adapter);
+                if (adapter instanceof AutoCloseable closeable) {
+                    outputs.add(closeable);
+                }
+            }
+        } catch (RuntimeException e) {
+            closeOutputs();
+            throw e;
+        }
+        LedStripHardwareAdapter adapter;
+        if (adapters.size() == 1) {
+            adapter = adapters.get(0);
+        } else {
+            // Async so a slow output cannot hold back the others or the animation
+            AsyncCompositeLedStripHardwareAdapter composite =
+                    new AsyncCompositeLedStripHardwareAdapter(adapters.toArray(new LedStripHardwareAdapter[0]));
+            outputs.add(0, composite);
+            adapter = composite;
+        }
+
+        this.engine = new AnimationEngine(new LedStripController(strip, adapter),
+                options.framePeriodMillis(), options.scheduling());
+        engine.setCurrentEffect(effect);
+    }
+
+    /**
+     * Starts the app and blocks until the duration elapses or, without a
+     * duration, until the JVM shuts down.
+     *
+     * @throws IllegalArgumentException for an unknown effect or an invalid output
+     */
+    static void run(LaunchOptions options) throws InterruptedException {
+        HeadlessLedStripApp app = new HeadlessLedStripApp(options);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            app.close();
+            stopped.countDown();
+        }, "ledstrip-shutdown"));
+
+        app.start();
+        LOGGER.log(Level.INFO, "Running {0} on {1} LEDs at {2} fps to {3}",
+                new Object[]{options.effect(), options.ledCount(), options.fps(), options.outputs()});
+        if (options.durationSeconds() > 0) {
+            stopped.await(options.durationSeconds(), TimeUnit.SECONDS);
+            app.close();
+        } else {
+            stopped.await();
+        }
+    }
+
+    void start() {
+        engine.start();
+    }
+
+    AnimationEngine getEngine() {
+        return engine;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (engine.getFrameStats().getFrameCount() > 0) {
+            LOGGER.log(Level.INFO, "Stopping after {0}", engine.getFrameStats());
+        }
+        engine.close();
+        closeOutputs();
+    }
+
+    private void closeOutputs() {
+        for (AutoCloseable output : outputs) {
+            try {
+                output.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Cannot close output " + output.getClass().getSimpleName(), e);
+            }
+        }
+        outputs.clear();
+    }
+
+    static AbstractEffect findEffect(String name, int ledCount) {
+        return new ServiceLoaderEffectRegistry().effect(name, EffectParameters.NONE, ledCount);
+    }
+
+    /**
+     * Creates the adapter for an {@code --output} specification such as
+     * {@code ddp:192.168.1.50} or {@code adalight:/dev/ttyUSB0}.
+     */
+    static LedStripHardwareAdapter createOutput(String spec, int ledCount, ColorOrder colorOrder) {
+        int colon = spec.indexOf(':');
+        String kind = (colon < 0 ? spec : spec.substring(0, colon)).toLowerCase(Locale.ROOT);
+        String target = colon < 0 ? "" : spec.substring(colon + 1);
+        return switch (kind) {
+            case "none" -> new NoopAdapter();
+            case "console" -> new ConsoleLedStripHardwareAdapter();
+            case "ansi" -> new AnsiTerminalLedStripHardwareAdapter(ledCount);
+            case "ddp" -> udp(ledCount, UdpPixelLedStripHardwareAdapter.Protocol.DDP, required(spec, target));
+            case "e131" -> udp(ledCount, UdpPixelLedStripHardwareAdapter.Protocol.E131, required(spec, target));
+            case "adalight" -> new StreamLedStripHardwareAdapter(ledCount,
+                    StreamLedStripHardwareAdapter.Framing.ADALIGHT, colorOrder, Path.of(required(spec, target)));
+            case "tpm2" -> new StreamLedStripHardwareAdapter(ledCount,
+                    StreamLedStripHardwareAdapter.Framing.TPM2, colorOrder, Path.of(required(spec, target)));
+            case "record" -> {
+                Path file = Path.of(required(spec, target));
+                yield file.getFileName().toString().endsWith(".ledz")
+                        ? new MappedRecordingAdapter(new CompressedFrameWriter(file, ledCount))
+                        : new MappedRecordingAdapter(file, ledCount);
+            }
+            default -> throw new IllegalArgumentException("Unknown output " + spec);
+        };
+    }
+
+    private static String required(String spec, String target) {
+        if (target.isEmpty()) {
+            throw new IllegalArgumentException("Output " + spec + " needs a target, e.g. " + spec + ":...");
+        }
+        return target;
+    }
+
+    private static LedStripHardwareAdapter udp(int ledCount, UdpPixelLedStripHardwareAdapter.Protocol protocol,
+                                               String target) {
+        int colon = target.lastIndexOf(':');
+        if (colon < 0) {
+            return new UdpPixelLedStripHardwareAdapter(ledCount, protocol, target);
+        }
+        int port;
+        try {
+            port = Integer.parseInt(target.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port in " + target, e);
+        }
+        return new UdpPixelLedStripHardwareAdapter(ledCount, protocol,
+                new InetSocketAddress(target.substring(0, colon), port), 1);
+    }
+}
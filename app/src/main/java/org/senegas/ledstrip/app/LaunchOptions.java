@@ -0,0 +1,165 @@
+package org.senegas.ledstrip.app;
+
+import org.senegas.ledstrip.app.animation.AnimationEngine;
+import org.senegas.ledstrip.hardware.ColorOrder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Launch settings, read from {@code --key value} (or {@code --key=value})
+ * arguments and optionally from a properties file named by {@code --config}
+ * using the same keys without dashes. Arguments override the file.
+ */
+record LaunchOptions(
+        boolean headless,
+        int ledCount,
+        String effect,
+        int fps,
+        AnimationEngine.Scheduling scheduling,
+        List<String> outputs,
+        ColorOrder colorOrder,
+        long durationSeconds,
+        boolean jmx,
+        boolean help
+) {
+    static final String USAGE = """
+            Usage: ledstrip [options]
+              --headless              run without a window; implied by -Djava.awt.headless=true
+              --leds N                number of LEDs (default 32)
+              --effect NAME           effect to run when headless (default Rainbow)
+              --fps N                 frames per second (default 50)
+              --scheduling MODE       fixed-rate or deadline (default fixed-rate)
+              --output SPEC           where frames go when headless; repeat or comma-separate for several:
+                                        ansi, console, none, ddp:HOST[:PORT], e131:HOST[:PORT],
+                                        adalight:DEVICE, tpm2:DEVICE, record:FILE (.ledz is compressed)
+                                      (default ansi)
+              --color-order ORDER     byte order for adalight and tpm2 outputs (default RGB)
+              --duration SECONDS      stop after this long instead of running until killed
+              --jmx                   publish metrics over JMX
+              --config FILE           read these settings from a properties file
+              --help                  print this message
+            """;
+
+    private static final Set<String> FLAGS = Set.of("headless", "jmx", "help");
+    private static final Set<String> VALUES = Set.of(
+            "leds", "effect", "fps", "scheduling", "output", "color-order", "duration", "config");
+
+    LaunchOptions {
+        if (ledCount <= 0) {
+            throw new IllegalArgumentException("LED count must be positive");
+        }
+        if (fps <= 0 || fps > 1000) {
+            throw new IllegalArgumentException("Frame rate must be between 1 and 1000");
+        }
+        if (durationSeconds < 0) {
+            throw new IllegalArgumentException("Duration cannot be negative");
+        }
+        outputs = List.copyOf(outputs);
+    }
+
+    /**
+     * @throws IllegalArgumentException for unknown options or invalid values
+     */
+    static LaunchOptions parse(String... args) {
+        Properties arguments = new Properties();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + arg);
+            }
+            String key = arg.substring(2);
+            String value = null;
+            int equals = key.indexOf('=');
+            if (equals >= 0) {
+                value = key.substring(equals + 1);
+                key = key.substring(0, equals);
+            }
+            if (FLAGS.contains(key)) {
+                arguments.setProperty(key, value != null ? value : "true");
+            } else if (VALUES.contains(key)) {
+                if (value == null) {
+                    if (i + 1 == args.length) {
+                        throw new IllegalArgumentException("Missing value for --" + key);
+                    }
+                    value = args[++i];
+                }
+                String previous = arguments.getProperty(key);
+                // Repeated outputs accumulate, other options keep the last value
+                arguments.setProperty(key, key.equals("output") && previous != null ? previous + "," + value : value);
+            } else {
+                throw new IllegalArgumentException("Unknown option --" + key);
+            }
+        }
+
+        Properties settings = new Properties();
+        String config = arguments.getProperty("config");
+        if (config != null) {
+            try (Reader reader = Files.newBufferedReader(Path.of(config))) {
+                settings.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read configuration " + config, e);
+            }
+            for (String key : settings.stringPropertyNames()) {
+                if (!FLAGS.contains(key) && !VALUES.contains(key)) {
+                    throw new IllegalArgumentException("Unknown setting " + key + " in " + config);
+                }
+            }
+        }
+        settings.putAll(arguments);
+        return of(settings);
+    }
+
+    private static LaunchOptions of(Properties settings) {
+        List<String> outputs = new ArrayList<>();
+        for (String output : settings.getProperty("output", "ansi").split(",")) {
+            if (!output.isBlank()) {
+                outputs.add(output.trim());
+            }
+        }
+        return new LaunchOptions(
+                Boolean.parseBoolean(settings.getProperty("headless"))
+                        || Boolean.getBoolean("java.awt.headless"),
+                integer(settings, "leds", 32),
+                settings.getProperty("effect", "Rainbow"),
+                integer(settings, "fps", 50),
+                scheduling(settings.getProperty("scheduling", "fixed-rate")),
+                outputs,
+                ColorOrder.valueOf(settings.getProperty("color-order", "RGB").toUpperCase(Locale.ROOT)),
+                integer(settings, "duration", 0),
+                Boolean.parseBoolean(settings.getProperty("jmx")),
+                Boolean.parseBoolean(settings.getProperty("help")));
+    }
+
+    private static int integer(Properties settings, String key, int defaultValue) {
+        String value = settings.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + key + " needs a number, not " + value, e);
+        }
+    }
+
+    private static AnimationEngine.Scheduling scheduling(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "fixed-rate" -> AnimationEngine.Scheduling.FIXED_RATE;
+            case "deadline" -> AnimationEngine.Scheduling.DEADLINE;
+            default -> throw new IllegalArgumentException("Unknown scheduling " + value);
+        };
+    }
+
+    long framePeriodMillis() {
+        return Math.max(1, Math.round(1000.0 / fps));
+    }
+}
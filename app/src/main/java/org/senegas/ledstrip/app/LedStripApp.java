@@ -4,21 +4,17 @@
 package org.senegas.ledstrip.app;
 
 
-import java.awt.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import com.formdev.flatlaf.FlatLightLaf;
-import org.senegas.ledstrip.domain.color.RgbColor;
-import org.senegas.ledstrip.domain.led.LedStrip;
-import org.senegas.ledstrip.domain.led.LedStripController;
-import org.senegas.ledstrip.hardware.ConsoleLedStripHardwareAdapter;
-import org.senegas.ledstrip.hardware.LedStripHardwareAdapter;
-import org.senegas.ledstrip.hardware.SwingLedStripHardwareAdapter;
-import org.senegas.ledstrip.view.LedStripFrame;
-
-import javax.swing.*;
+import org.senegas.ledstrip.metrics.MetricsRegistry;
 
+/**
+ * Entry point. Opens the Swing window, or with {@code --headless} (or
+ * {@code -Djava.awt.headless=true}) runs an effect straight to the
+ * configured outputs; see {@link LaunchOptions#USAGE}. This class only
+ * dispatches, so the headless path never loads AWT.
+ */
 public class LedStripApp {
 
     public static String getGreeting() {
@@ -34,23 +30,38 @@ public class LedStripApp {
 
     private static final Logger LOGGER = Logger.getLogger(LedStripApp.class.getName());
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
+        LaunchOptions options;
+        try {
+            options = LaunchOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LaunchOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help()) {
+            System.out.print(LaunchOptions.USAGE);
+            return;
+        }
+
         LOGGER.log(Level.INFO, getGreeting());
         LOGGER.log(Level.INFO, TITLE + " has started.");
+        if (options.jmx() || !options.headless()) {
+            MetricsRegistry.global().publishToJmx();
+        }
 
-        EventQueue.invokeLater(() -> new LedStripApp().create());
-    }
-
-    private void create() {
-        FlatLightLaf.setup();
-
-        LedStrip strip = LedStrip.ofLength(32);
-
-        final JFrame f = new LedStripFrame(strip);
-        f.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
-        //f.setPreferredSize(new Dimension(350, 180));
-        f.pack();
-        f.setLocationRelativeTo(null);
-        f.setVisible(true);
+        if (options.headless()) {
+            try {
+                HeadlessLedStripApp.run(options);
+            } catch (IllegalArgumentException e) {
+                // Unknown effect or output: reported like the other option errors
+                System.err.println(e.getMessage());
+                System.err.print(LaunchOptions.USAGE);
+                System.exit(2);
+            }
+        } else {
+            SwingLedStripApp.launch(options);
+        }
     }
 }
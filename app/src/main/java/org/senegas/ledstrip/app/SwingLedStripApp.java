@@ -0,0 +1,35 @@
+package org.senegas.ledstrip.app;
+
+import com.formdev.flatlaf.FlatLightLaf;
+import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.view.LedStripFrame;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Desktop launcher: shows the strip in a {@link LedStripFrame}. Kept apart
+ * from {@link LedStripApp} so headless runs never load AWT or Swing.
+ */
+final class SwingLedStripApp {
+
+    private SwingLedStripApp() {
+    }
+
+    static void launch(LaunchOptions options) {
+        EventQueue.invokeLater(() -> create(options.ledCount()));
+    }
+
+    private static void create(int ledCount) {
+        FlatLightLaf.setup();
+
+        LedStrip strip = LedStrip.ofLength(ledCount);
+
+        final JFrame f = new LedStripFrame(strip);
+        f.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        //f.setPreferredSize(new Dimension(350, 180));
+        f.pack();
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+}
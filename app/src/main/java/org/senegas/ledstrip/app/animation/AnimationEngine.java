@@ -1,33 +1,139 @@
 package org.senegas.ledstrip.app.animation;
 
 import org.senegas.ledstrip.domain.effect.AbstractEffect;
+import org.senegas.ledstrip.domain.effect.CrossfadeEffect;
 import org.senegas.ledstrip.domain.effect.Effect;
 import org.senegas.ledstrip.domain.led.LedStripController;
+import org.senegas.ledstrip.metrics.FrameEvent;
+import org.senegas.ledstrip.metrics.MetricsRegistry;
+import org.senegas.ledstrip.metrics.ThreadAllocation;
 
 import java.util.Objects;
 import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Drives an effect on a controller from a single animation thread.
+ *
+ * Effect time is measured on a monotonic {@link FrameClock} in nanoseconds
+ * from {@link #start()}, and every frame's scheduling lateness, overruns and
+ * skipped deadlines are recorded in {@link #getFrameStats()}. Frame times,
+ * achieved rate and per-frame allocation also go to the {@code engine.*}
+ * metrics of {@link MetricsRegistry#global()}, or of the registry the engine
+ * is given so that several engines can be told apart.
+ *
+ * Effects can be switched while running, either as a cut or through a timed
+ * {@link CrossfadeEffect}; the engine keeps rendering throughout.
+ *
+ * While running, the engine is the controller's renderer: edits queued on the
+ * controller are applied at the start of the next frame, which is brought
+ * forward if the engine is idling in {@link Scheduling#DEADLINE} mode. An
+ * effect or adapter that throws is logged and the engine keeps running.
+ */
 public final class AnimationEngine implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(AnimationEngine.class.getName());
+
+    /**
+     * How frames are scheduled.
+     */
+    public enum Scheduling {
+        /**
+         * Render every frame period, whether or not the effect will change.
+         * Deadlines missed by more than a period are skipped, not replayed.
+         */
+        FIXED_RATE,
+        /**
+         * Sleep until {@link Effect#nextUpdateNanos} reports the next change,
+         * never faster than the frame period and never idler than {@link #MAX_IDLE_MILLIS}.
+         */
+        DEADLINE
+    }
+
+    public static final long MAX_IDLE_MILLIS = 1000;
+
+    /* How long close() lets a frame in flight finish before interrupting it */
+    private static final long CLOSE_TIMEOUT_MILLIS = 1000;
 
     private final ScheduledExecutorService scheduler;
     private final LedStripController controller;
     private volatile Effect currentEffect;
-    private final long framePeriodMillis;
+    private final long framePeriodNanos;
+    private final Scheduling scheduling;
+    private final FrameClock clock;
+    private final FrameTimingRecorder timing = new FrameTimingRecorder();
+    private final Runnable wakeUp = this::requestFrame;
+    private final EngineMetrics metrics;
 
     private ScheduledFuture<?> task;
+    // Identifies the live chain of self-rescheduling frames; stale frames stop on mismatch
+    private long frameChain;
+    private long startNanos;
+    private long deadlineNanos;
 
     public AnimationEngine(
             LedStripController controller,
             long framePeriodMillis
     ) {
-        this.controller = Objects.requireNonNull(controller);
-        this.framePeriodMillis = framePeriodMillis;
+        this(controller, framePeriodMillis, Scheduling.FIXED_RATE);
+    }
 
-        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    public AnimationEngine(
+            LedStripController controller,
+            long framePeriodMillis,
+            Scheduling scheduling
+    ) {
+        this(controller, framePeriodMillis, scheduling, FrameClock.system());
+    }
+
+    /**
+     * @param framePeriodMillis frame period, or minimum time between frames in {@link Scheduling#DEADLINE} mode
+     * @param clock time source for effects and frame deadlines
+     */
+    public AnimationEngine(
+            LedStripController controller,
+            long framePeriodMillis,
+            Scheduling scheduling,
+            FrameClock clock
+    ) {
+        this(controller, framePeriodMillis, scheduling, clock, MetricsRegistry.global());
+    }
+
+    /**
+     * @param metrics registry receiving the {@code engine.*} metrics of this engine
+     */
+    public AnimationEngine(
+            LedStripController controller,
+            long framePeriodMillis,
+            Scheduling scheduling,
+            FrameClock clock,
+            MetricsRegistry metrics
+    ) {
+        this(controller, framePeriodMillis, scheduling, clock, metrics, Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "ledstrip-animation-thread");
             t.setDaemon(true);
             return t;
-        });
+        }));
+    }
+
+    /* Runs frames on the given single-threaded scheduler, which the engine shuts down on close */
+    AnimationEngine(
+            LedStripController controller,
+            long framePeriodMillis,
+            Scheduling scheduling,
+            FrameClock clock,
+            MetricsRegistry metrics,
+            ScheduledExecutorService scheduler
+    ) {
+        if (framePeriodMillis <= 0) {
+            throw new IllegalArgumentException("Frame period must be positive");
+        }
+        this.controller = Objects.requireNonNull(controller);
+        this.framePeriodNanos = TimeUnit.MILLISECONDS.toNanos(framePeriodMillis);
+        this.scheduling = Objects.requireNonNull(scheduling);
+        this.clock = Objects.requireNonNull(clock);
+        this.metrics = new EngineMetrics(metrics, "engine");
+        this.scheduler = Objects.requireNonNull(scheduler);
     }
 
     public synchronized void start() {
@@ -35,34 +141,220 @@ public final class AnimationEngine implements AutoCloseable {
             throw new IllegalStateException("No effect selected");
         }
 
+        controller.attachRenderer(wakeUp);
         currentEffect.reset();
 
-        long startTime = System.currentTimeMillis();
+        startNanos = clock.nanoTime();
+        deadlineNanos = startNanos;
+        scheduleFrame(0);
+    }
+
+    private void scheduleFrame(long delayNanos) {
+        long chain = ++frameChain;
+        task = scheduler.schedule(() -> renderFrame(chain), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void renderFrame(long chain) {
+        synchronized (this) {
+            if (chain != frameChain || task == null) {
+                return;
+            }
+        }
+
+        Effect effect = currentEffect;
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        long frameStart = clock.nanoTime();
+        long lateness = frameStart - deadlineNanos;
+        long effectTime = frameStart - startNanos;
+        long allocatedBefore = ThreadAllocation.currentThreadAllocatedBytes();
+
+        // Thrown out of the frame, it would end the frame chain with the engine still attached
+        boolean changed = controller.drainCommands();
+        try {
+            changed |= controller.renderEffect(effect, effectTime);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Effect " + AbstractEffect.nameOf(effect) + " failed", e);
+        }
+        if (changed) {
+            try {
+                controller.publish();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Strip publish failed", e);
+            }
+        }
+        if (effect instanceof CrossfadeEffect crossfade && crossfade.isComplete()) {
+            settleCrossfade(crossfade);
+        }
+
+        long frameEnd = clock.nanoTime();
+        long frameNanos = frameEnd - frameStart;
+        long skipped = 0;
+        long next;
+
+        if (scheduling == Scheduling.DEADLINE) {
+            // Clamp as a delay: effects with nothing scheduled report Long.MAX_VALUE
+            long wantedDelay = effect.nextUpdateNanos(effectTime) - effectTime;
+            long delay = Math.min(Math.max(wantedDelay, framePeriodNanos),
+                    TimeUnit.MILLISECONDS.toNanos(MAX_IDLE_MILLIS));
+            next = frameStart + delay;
+        } else {
+            next = deadlineNanos + framePeriodNanos;
+            if (frameEnd >= next) {
+                // Fell behind: drop the missed deadlines instead of bursting to catch up
+                skipped = (frameEnd - next) / framePeriodNanos + 1;
+                next += skipped * framePeriodNanos;
+            }
+        }
 
-        task = scheduler.scheduleAtFixedRate(() -> {
-            long now = System.currentTimeMillis() - startTime;
-            controller.applyEffect(currentEffect, now);
-        }, 0, framePeriodMillis, TimeUnit.MILLISECONDS);
+        timing.record(lateness, frameNanos, frameNanos > framePeriodNanos, skipped);
+        metrics.record(frameStart, lateness, frameNanos, skipped, EngineMetrics.allocatedSince(allocatedBefore));
+        event.end();
+        if (event.shouldCommit()) {
+            event.effect = AbstractEffect.nameOf(effect);
+            event.strips = 1;
+            event.lateness = Math.max(0, lateness);
+            event.skippedFrames = skipped;
+            event.commit();
+        }
+
+        synchronized (this) {
+            // A stop() or wake-up while rendering replaced this chain: do not reschedule
+            if (chain == frameChain && task != null) {
+                if (controller.hasPendingCommands()) {
+                    // Edits queued while rendering: show them next period rather than after a long sleep
+                    next = Math.min(next, frameStart + framePeriodNanos);
+                }
+                deadlineNanos = next;
+                scheduleFrame(Math.max(0, next - clock.nanoTime()));
+            }
+        }
     }
 
+    /* Brings the next frame forward when queued edits would otherwise wait out a deadline sleep */
+    private synchronized void requestFrame() {
+        if (task == null) {
+            return;
+        }
+        long now = clock.nanoTime();
+        if (deadlineNanos - now > framePeriodNanos) {
+            task.cancel(false);
+            deadlineNanos = now;
+            scheduleFrame(0);
+        }
+    }
+
+    private synchronized void settleCrossfade(CrossfadeEffect crossfade) {
+        if (currentEffect == crossfade) {
+            currentEffect = crossfade.getIncoming();
+        }
+    }
+
+    /**
+     * Stops rendering. A frame already in progress still completes, after
+     * which the strip is handed back to direct updates on the animation thread.
+     */
     public synchronized void stop() {
         if (task != null) {
             task.cancel(false);
             task = null;
+            detachAfterFrame();
+        }
+        // A transition cut short by stop() resumes on its target effect
+        if (currentEffect instanceof CrossfadeEffect crossfade) {
+            currentEffect = crossfade.getIncoming();
+        }
+    }
+
+    /* Detaching on the caller's thread would apply queued edits while a frame may still be rendering */
+    private void detachAfterFrame() {
+        Runnable detach = () -> {
+            synchronized (this) {
+                // Unless start() was called again meanwhile
+                if (task == null) {
+                    controller.detachRenderer(wakeUp);
+                }
+            }
+        };
+        try {
+            scheduler.execute(detach);
+        } catch (RejectedExecutionException e) {
+            // Closed: no frame can start any more
+            detach.run();
         }
     }
 
     @Override
     public void close() {
         stop();
-        scheduler.shutdownNow();
+        shutdownAfterFrame(scheduler, CLOSE_TIMEOUT_MILLIS);
+    }
+
+    /* Lets a frame in flight and the queued detach run, then stops the thread */
+    static void shutdownAfterFrame(ExecutorService executor, long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Selects the effect to run. While running, this cuts over to the new
+     * effect on the next frame, without stopping the engine.
+     */
+    public void setCurrentEffect(Effect effect) {
+        switchEffect(effect, 0);
     }
 
-    public void setCurrentEffect(AbstractEffect abstractEffect) {
-        if (task != null && !task.isCancelled()) {
-            throw new IllegalStateException("Cannot change effect while running");
+    /**
+     * Switches effects, crossfading over {@code crossfadeMillis} when the
+     * engine is running. The new effect is reset before its first frame.
+     */
+    public synchronized void switchEffect(Effect effect, long crossfadeMillis) {
+        Objects.requireNonNull(effect);
+        if (task == null) {
+            this.currentEffect = effect;
+            return;
         }
 
-        this.currentEffect = Objects.requireNonNull(abstractEffect);
+        Effect current = currentEffect;
+        Effect target = current instanceof CrossfadeEffect crossfade ? crossfade.getIncoming() : current;
+        if (target == effect) {
+            return;
+        }
+
+        if (current instanceof CrossfadeEffect crossfade && !crossfade.isComplete()
+                && crossfade.involves(effect)) {
+            // The effect is still rendering in the transition: it cannot also be its incoming side
+            if (crossfade.getOutgoing() == effect) {
+                this.currentEffect = crossfade.reversed();
+            } else {
+                effect.reset();
+                this.currentEffect = effect;
+            }
+        } else {
+            this.currentEffect = new CrossfadeEffect(current, effect, crossfadeMillis);
+        }
+
+        // Render the transition now rather than at the end of a long deadline sleep
+        task.cancel(false);
+        deadlineNanos = clock.nanoTime();
+        scheduleFrame(0);
+    }
+
+    /**
+     * @return frame timing accumulated since creation or the last {@link #resetFrameStats()}
+     */
+    public FrameStats getFrameStats() {
+        return timing.snapshot();
+    }
+
+    public void resetFrameStats() {
+        timing.reset();
     }
 }
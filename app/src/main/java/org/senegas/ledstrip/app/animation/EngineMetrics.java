@@ -0,0 +1,47 @@
+package org.senegas.ledstrip.app.animation;
+
+import org.senegas.ledstrip.metrics.Counter;
+import org.senegas.ledstrip.metrics.Histogram;
+import org.senegas.ledstrip.metrics.Meter;
+import org.senegas.ledstrip.metrics.MetricsRegistry;
+import org.senegas.ledstrip.metrics.ThreadAllocation;
+
+/* The <prefix>.* metrics of an engine, recorded once per frame on the engine thread */
+final class EngineMetrics {
+    private final Histogram frameTimes;
+    private final Histogram lateness;
+    private final Histogram allocatedBytes;
+    private final Meter frameRate;
+    private final Counter skippedFrames;
+
+    EngineMetrics(MetricsRegistry registry, String prefix) {
+        this.frameTimes = registry.histogram(prefix + ".frame");
+        this.lateness = registry.histogram(prefix + ".lateness");
+        this.allocatedBytes = registry.histogram(prefix + ".allocatedBytes");
+        this.frameRate = registry.meter(prefix + ".fps");
+        this.skippedFrames = registry.counter(prefix + ".skippedFrames");
+    }
+
+    /**
+     * @param allocated heap allocated to produce the frame, or -1 if not measured
+     */
+    void record(long frameStart, long latenessNanos, long frameNanos, long skipped, long allocated) {
+        frameTimes.record(frameNanos);
+        lateness.record(latenessNanos);
+        frameRate.mark(frameStart);
+        if (skipped > 0) {
+            skippedFrames.add(skipped);
+        }
+        if (allocated >= 0) {
+            allocatedBytes.record(allocated);
+        }
+    }
+
+    /**
+     * @param allocatedBefore an earlier {@link ThreadAllocation#currentThreadAllocatedBytes()} of this thread
+     * @return bytes the current thread allocated since, or -1 if not measured
+     */
+    static long allocatedSince(long allocatedBefore) {
+        return allocatedBefore >= 0 ? ThreadAllocation.currentThreadAllocatedBytes() - allocatedBefore : -1;
+    }
+}
@@ -0,0 +1,16 @@
+package org.senegas.ledstrip.app.animation;
+
+/**
+ * Monotonic time source driving an {@link AnimationEngine}.
+ */
+@FunctionalInterface
+public interface FrameClock {
+    /**
+     * @return monotonic time in nanoseconds; only differences are meaningful
+     */
+    long nanoTime();
+
+    static FrameClock system() {
+        return System::nanoTime;
+    }
+}
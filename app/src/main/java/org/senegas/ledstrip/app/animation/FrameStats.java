@@ -0,0 +1,71 @@
+package org.senegas.ledstrip.app.animation;
+
+/**
+ * Snapshot of the frame timing of an {@link AnimationEngine}.
+ *
+ * Lateness is how long after its scheduled deadline a frame started; an
+ * overrun is a frame whose rendering took longer than the frame period; a
+ * skipped frame is a fixed-rate deadline dropped because the engine fell
+ * more than a period behind.
+ */
+public final class FrameStats {
+    private final long frameCount;
+    private final long overrunCount;
+    private final long skippedFrames;
+    private final long lastLatenessNanos;
+    private final long maxLatenessNanos;
+    private final long totalLatenessNanos;
+    private final long maxFrameNanos;
+
+    FrameStats(long frameCount, long overrunCount, long skippedFrames, long lastLatenessNanos,
+               long maxLatenessNanos, long totalLatenessNanos, long maxFrameNanos) {
+        this.frameCount = frameCount;
+        this.overrunCount = overrunCount;
+        this.skippedFrames = skippedFrames;
+        this.lastLatenessNanos = lastLatenessNanos;
+        this.maxLatenessNanos = maxLatenessNanos;
+        this.totalLatenessNanos = totalLatenessNanos;
+        this.maxFrameNanos = maxFrameNanos;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    public long getLastLatenessNanos() {
+        return lastLatenessNanos;
+    }
+
+    public long getMaxLatenessNanos() {
+        return maxLatenessNanos;
+    }
+
+    public long getMeanLatenessNanos() {
+        return frameCount == 0 ? 0 : totalLatenessNanos / frameCount;
+    }
+
+    /**
+     * @return longest time spent rendering and publishing a single frame
+     */
+    public long getMaxFrameNanos() {
+        return maxFrameNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameStats[frames=" + frameCount
+                + ", overruns=" + overrunCount
+                + ", skipped=" + skippedFrames
+                + ", meanLatenessNanos=" + getMeanLatenessNanos()
+                + ", maxLatenessNanos=" + maxLatenessNanos
+                + ", maxFrameNanos=" + maxFrameNanos + "]";
+    }
+}
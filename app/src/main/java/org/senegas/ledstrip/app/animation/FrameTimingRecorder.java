@@ -0,0 +1,40 @@
+package org.senegas.ledstrip.app.animation;
+
+/* Accumulates frame timing on the animation thread; snapshots may be taken from any thread */
+final class FrameTimingRecorder {
+    private long frameCount;
+    private long overrunCount;
+    private long skippedFrames;
+    private long lastLatenessNanos;
+    private long maxLatenessNanos;
+    private long totalLatenessNanos;
+    private long maxFrameNanos;
+
+    synchronized void record(long latenessNanos, long frameNanos, boolean overrun, long skipped) {
+        long lateness = Math.max(0, latenessNanos);
+        frameCount++;
+        lastLatenessNanos = lateness;
+        totalLatenessNanos += lateness;
+        maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+        maxFrameNanos = Math.max(maxFrameNanos, frameNanos);
+        if (overrun) {
+            overrunCount++;
+        }
+        skippedFrames += skipped;
+    }
+
+    synchronized FrameStats snapshot() {
+        return new FrameStats(frameCount, overrunCount, skippedFrames, lastLatenessNanos,
+                maxLatenessNanos, totalLatenessNanos, maxFrameNanos);
+    }
+
+    synchronized void reset() {
+        frameCount = 0;
+        overrunCount = 0;
+        skippedFrames = 0;
+        lastLatenessNanos = 0;
+        maxLatenessNanos = 0;
+        totalLatenessNanos = 0;
+        maxFrameNanos = 0;
+    }
+}
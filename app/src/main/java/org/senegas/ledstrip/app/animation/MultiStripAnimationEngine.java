@@ -0,0 +1,330 @@
+package org.senegas.ledstrip.app.animation;
+
+import org.senegas.ledstrip.domain.effect.AbstractEffect;
+import org.senegas.ledstrip.domain.effect.Effect;
+import org.senegas.ledstrip.domain.led.LedStripController;
+import org.senegas.ledstrip.metrics.FrameEvent;
+import org.senegas.ledstrip.metrics.MetricsRegistry;
+import org.senegas.ledstrip.metrics.ThreadAllocation;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drives many strips from one clock and a fixed set of threads.
+ *
+ * Every tick renders all strips in parallel on a shared fork-join pool sized
+ * to the available processors, then publishes the changed strips together
+ * from the tick thread, so thread count stays constant however many strips
+ * are added. Each strip needs its own effect instance, since effects keep
+ * per-strip state. While running, the engine is the renderer of every
+ * strip's controller, and edits queued on a controller are applied by the
+ * worker rendering that strip at the start of the next tick. A strip whose
+ * effect or adapter throws is logged and skipped for that tick; the other
+ * strips and the following ticks are not affected.
+ *
+ * Tick times, lateness, rate and allocation go to the {@code multiEngine.*}
+ * metrics of {@link MetricsRegistry#global()} or of the given registry; the
+ * allocation of a tick adds up the tick thread and every strip rendered by
+ * the workers.
+ */
+public final class MultiStripAnimationEngine implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MultiStripAnimationEngine.class.getName());
+
+    /* Strips rendered by one worker before the span is no longer split */
+    private static final int STRIPS_PER_TASK = 1;
+    /* How long close() lets a tick in flight finish before interrupting it */
+    private static final long CLOSE_TIMEOUT_MILLIS = 1000;
+
+    private final ScheduledExecutorService scheduler;
+    private final ForkJoinPool workers;
+    private final long framePeriodNanos;
+    private final FrameClock clock;
+    private final FrameTimingRecorder timing = new FrameTimingRecorder();
+    // Ticks run at a fixed rate, so queued edits need no wake-up
+    private final Runnable wakeUp = () -> {
+    };
+    private final EngineMetrics metrics;
+
+    // Copy-on-write so ticks iterate without locking or allocating
+    private volatile StripSlot[] slots = new StripSlot[0];
+
+    private ScheduledFuture<?> task;
+    // Identifies the live chain of self-rescheduling ticks; stale ticks stop on mismatch
+    private long tickChain;
+    private long startNanos;
+    private long deadlineNanos;
+
+    public MultiStripAnimationEngine(long framePeriodMillis) {
+        this(framePeriodMillis, Runtime.getRuntime().availableProcessors(), FrameClock.system());
+    }
+
+    public MultiStripAnimationEngine(long framePeriodMillis, int workerCount, FrameClock clock) {
+        this(framePeriodMillis, workerCount, clock, MetricsRegistry.global());
+    }
+
+    /**
+     * @param metrics registry receiving the {@code multiEngine.*} metrics of this engine
+     */
+    public MultiStripAnimationEngine(long framePeriodMillis, int workerCount, FrameClock clock,
+                                     MetricsRegistry metrics) {
+        this(framePeriodMillis, workerCount, clock, metrics, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ledstrip-multi-animation-thread");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    /* Runs ticks on the given single-threaded scheduler, which the engine shuts down on close */
+    MultiStripAnimationEngine(long framePeriodMillis, int workerCount, FrameClock clock,
+                              MetricsRegistry metrics, ScheduledExecutorService scheduler) {
+        if (framePeriodMillis <= 0) {
+            throw new IllegalArgumentException("Frame period must be positive");
+        }
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        this.framePeriodNanos = TimeUnit.MILLISECONDS.toNanos(framePeriodMillis);
+        this.clock = Objects.requireNonNull(clock);
+        this.metrics = new EngineMetrics(metrics, "multiEngine");
+        this.scheduler = Objects.requireNonNull(scheduler);
+        this.workers = new ForkJoinPool(workerCount, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("ledstrip-render-worker-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    public synchronized void addStrip(LedStripController controller, Effect effect) {
+        Objects.requireNonNull(controller);
+        Objects.requireNonNull(effect);
+        if (indexOf(controller) >= 0) {
+            throw new IllegalArgumentException("Strip already added");
+        }
+        if (task != null) {
+            controller.attachRenderer(wakeUp);
+        }
+        effect.reset();
+        StripSlot[] grown = Arrays.copyOf(slots, slots.length + 1);
+        grown[slots.length] = new StripSlot(controller, effect);
+        slots = grown;
+    }
+
+    public synchronized void removeStrip(LedStripController controller) {
+        int index = indexOf(controller);
+        if (index >= 0) {
+            StripSlot[] shrunk = new StripSlot[slots.length - 1];
+            System.arraycopy(slots, 0, shrunk, 0, index);
+            System.arraycopy(slots, index + 1, shrunk, index, slots.length - index - 1);
+            slots = shrunk;
+            detachAfterTick(controller);
+        }
+    }
+
+    /**
+     * Replaces the effect of a strip from the next tick on; the effect is reset first.
+     */
+    public synchronized void setEffect(LedStripController controller, Effect effect) {
+        int index = indexOf(controller);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown strip");
+        }
+        Objects.requireNonNull(effect).reset();
+        slots[index].effect = effect;
+    }
+
+    public int getStripCount() {
+        return slots.length;
+    }
+
+    private int indexOf(LedStripController controller) {
+        StripSlot[] current = slots;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].controller == controller) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public synchronized void start() {
+        if (task != null) {
+            return;
+        }
+        for (int i = 0; i < slots.length; i++) {
+            try {
+                slots[i].controller.attachRenderer(wakeUp);
+            } catch (IllegalStateException e) {
+                for (int attached = 0; attached < i; attached++) {
+                    slots[attached].controller.detachRenderer(wakeUp);
+                }
+                throw e;
+            }
+        }
+        startNanos = clock.nanoTime();
+        deadlineNanos = startNanos;
+        scheduleTick(0);
+    }
+
+    private void scheduleTick(long delayNanos) {
+        long chain = ++tickChain;
+        task = scheduler.schedule(() -> tick(chain), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void tick(long chain) {
+        synchronized (this) {
+            if (chain != tickChain || task == null) {
+                return;
+            }
+        }
+
+        StripSlot[] current = slots;
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        long frameStart = clock.nanoTime();
+        long lateness = frameStart - deadlineNanos;
+        long allocatedBefore = ThreadAllocation.currentThreadAllocatedBytes();
+        long workerAllocated = 0;
+
+        if (current.length > 0) {
+            workers.invoke(new RenderSpan(current, 0, current.length, frameStart - startNanos));
+            for (StripSlot slot : current) {
+                workerAllocated += Math.max(0, slot.allocated);
+                if (slot.changed) {
+                    try {
+                        slot.controller.publish();
+                    } catch (RuntimeException e) {
+                        LOGGER.log(Level.WARNING, "Strip publish failed", e);
+                    }
+                }
+            }
+        }
+
+        long frameEnd = clock.nanoTime();
+        long frameNanos = frameEnd - frameStart;
+        long next = deadlineNanos + framePeriodNanos;
+        long skipped = 0;
+        if (frameEnd >= next) {
+            skipped = (frameEnd - next) / framePeriodNanos + 1;
+            next += skipped * framePeriodNanos;
+        }
+        timing.record(lateness, frameNanos, frameNanos > framePeriodNanos, skipped);
+        long allocated = EngineMetrics.allocatedSince(allocatedBefore);
+        metrics.record(frameStart, lateness, frameNanos, skipped,
+                allocated >= 0 ? allocated + workerAllocated : -1);
+        event.end();
+        if (event.shouldCommit()) {
+            event.strips = current.length;
+            event.lateness = Math.max(0, lateness);
+            event.skippedFrames = skipped;
+            event.commit();
+        }
+
+        synchronized (this) {
+            // A stop() and start() while ticking replaced this chain: do not reschedule
+            if (chain == tickChain && task != null) {
+                deadlineNanos = next;
+                scheduleTick(Math.max(0, next - clock.nanoTime()));
+            }
+        }
+    }
+
+    /**
+     * Stops ticking. A tick already in progress still completes, after which
+     * the strips are handed back to direct updates on the tick thread.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+            for (StripSlot slot : slots) {
+                detachAfterTick(slot.controller);
+            }
+        }
+    }
+
+    /* A tick in flight may still be rendering the strip: detach once it is done, on the tick thread */
+    private void detachAfterTick(LedStripController controller) {
+        Runnable detach = () -> {
+            synchronized (this) {
+                // Unless the strip is driven again by then, after start() or addStrip()
+                if (task == null || indexOf(controller) < 0) {
+                    controller.detachRenderer(wakeUp);
+                }
+            }
+        };
+        try {
+            scheduler.execute(detach);
+        } catch (RejectedExecutionException e) {
+            // Closed: no tick can start any more
+            detach.run();
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        AnimationEngine.shutdownAfterFrame(scheduler, CLOSE_TIMEOUT_MILLIS);
+        workers.shutdownNow();
+    }
+
+    public FrameStats getFrameStats() {
+        return timing.snapshot();
+    }
+
+    private static final class StripSlot {
+        private final LedStripController controller;
+        private volatile Effect effect;
+        // Written by a worker, read by the tick thread after the join
+        private boolean changed;
+        private long allocated;
+
+        private StripSlot(LedStripController controller, Effect effect) {
+            this.controller = controller;
+            this.effect = effect;
+        }
+    }
+
+    /* Renders slots [from, to), splitting in halves across the pool */
+    private static final class RenderSpan extends RecursiveAction {
+        private final StripSlot[] slots;
+        private final int from;
+        private final int to;
+        private final long timestampNanos;
+
+        private RenderSpan(StripSlot[] slots, int from, int to, long timestampNanos) {
+            this.slots = slots;
+            this.from = from;
+            this.to = to;
+            this.timestampNanos = timestampNanos;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= STRIPS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    StripSlot slot = slots[i];
+                    // Measured per strip: spans may be split and joined on other threads
+                    long allocatedBefore = ThreadAllocation.currentThreadAllocatedBytes();
+                    boolean edited = slot.controller.drainCommands();
+                    try {
+                        slot.changed = slot.controller.renderEffect(slot.effect, timestampNanos) | edited;
+                    } catch (RuntimeException e) {
+                        // Thrown out of the span, it would fail the whole tick and end the tick chain
+                        LOGGER.log(Level.WARNING, "Effect " + AbstractEffect.nameOf(slot.effect) + " failed", e);
+                        slot.changed = edited;
+                    }
+                    slot.allocated = EngineMetrics.allocatedSince(allocatedBefore);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RenderSpan(slots, from, mid, timestampNanos),
+                    new RenderSpan(slots, mid, to, timestampNanos));
+        }
+    }
+}
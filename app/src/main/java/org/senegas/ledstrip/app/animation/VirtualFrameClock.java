@@ -0,0 +1,25 @@
+package org.senegas.ledstrip.app.animation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Manually advanced clock, for tests and offline rendering */
+public final class VirtualFrameClock implements FrameClock {
+    private final AtomicLong now = new AtomicLong();
+
+    @Override
+    public long nanoTime() {
+        return now.get();
+    }
+
+    public void advance(long amount, TimeUnit unit) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Time cannot go backwards");
+        }
+        now.addAndGet(unit.toNanos(amount));
+    }
+
+    public void advanceMillis(long millis) {
+        advance(millis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,124 @@
+package org.senegas.ledstrip.domain.color;
+
+/**
+ * Allocation-free color math on packed 0xRRGGBB ints.
+ *
+ * Hot paths (effects running at 100+ fps over every pixel) should work on
+ * packed ints with these helpers and only convert to {@link RgbColor} at API
+ * boundaries. All results are rounded the same way as the double-based
+ * {@link RgbColor#blend} and {@link RgbColor#withBrightness}, using integer
+ * arithmetic only.
+ */
+public final class PackedRgb {
+
+    public static final int MAX_8 = 255;
+    private static final int RGB_MASK = 0xFFFFFF;
+
+    private PackedRgb() {
+    }
+
+    public static int pack(int red, int green, int blue) {
+        return (clamp8(red) << 16) | (clamp8(green) << 8) | clamp8(blue);
+    }
+
+    public static int red(int rgb) {
+        return (rgb >> 16) & 0xFF;
+    }
+
+    public static int green(int rgb) {
+        return (rgb >> 8) & 0xFF;
+    }
+
+    public static int blue(int rgb) {
+        return rgb & 0xFF;
+    }
+
+    /**
+     * Scales every channel by {@code scale / 255}.
+     * @param rgb packed color
+     * @param scale brightness, 0 (off) to 255 (unchanged)
+     */
+    public static int scale8(int rgb, int scale) {
+        int s = clamp8(scale);
+        return (div255(red(rgb) * s) << 16)
+                | (div255(green(rgb) * s) << 8)
+                | div255(blue(rgb) * s);
+    }
+
+    /**
+     * Blends two colors, {@code amount / 255} of the way from {@code from} to {@code to}.
+     * @param from color returned for amount 0
+     * @param to color returned for amount 255
+     * @param amount blend position, 0..255
+     */
+    public static int blend8(int from, int to, int amount) {
+        int a = clamp8(amount);
+        int inv = MAX_8 - a;
+        return (div255(red(from) * inv + red(to) * a) << 16)
+                | (div255(green(from) * inv + green(to) * a) << 8)
+                | div255(blue(from) * inv + blue(to) * a);
+    }
+
+    /**
+     * Linear interpolation at {@code position / range}, e.g. pixel index over strip length.
+     * @param position position along the range, clamped to 0..range
+     * @param range positive denominator
+     */
+    public static int lerp(int from, int to, int position, int range) {
+        if (range <= 0) {
+            throw new IllegalArgumentException("range must be positive");
+        }
+        int p = Math.max(0, Math.min(range, position));
+        return blend8(from, to, (int) (((long) p * MAX_8 + (range >> 1)) / range));
+    }
+
+    /**
+     * Per-channel saturating addition.
+     */
+    public static int add(int a, int b) {
+        return (Math.min(MAX_8, red(a) + red(b)) << 16)
+                | (Math.min(MAX_8, green(a) + green(b)) << 8)
+                | Math.min(MAX_8, blue(a) + blue(b));
+    }
+
+    /**
+     * Per-channel product, darkening: {@code a * b / 255}.
+     */
+    public static int multiply(int a, int b) {
+        return (div255(red(a) * red(b)) << 16)
+                | (div255(green(a) * green(b)) << 8)
+                | div255(blue(a) * blue(b));
+    }
+
+    /**
+     * Per-channel inverse product, brightening: {@code 255 - (255 - a) * (255 - b) / 255}.
+     */
+    public static int screen(int a, int b) {
+        return ~multiply(~a & RGB_MASK, ~b & RGB_MASK) & RGB_MASK;
+    }
+
+    /**
+     * Per-channel maximum.
+     */
+    public static int max(int a, int b) {
+        return (Math.max(red(a), red(b)) << 16)
+                | (Math.max(green(a), green(b)) << 8)
+                | Math.max(blue(a), blue(b));
+    }
+
+    /**
+     * Interned {@link RgbColor} for a packed value, for code that must hand out the value type.
+     */
+    public static RgbColor toColor(int rgb) {
+        return RgbColor.fromPackedRgb(rgb);
+    }
+
+    static int clamp8(int v) {
+        return v < 0 ? 0 : Math.min(v, MAX_8);
+    }
+
+    /* Rounded division by 255, exact for 0..255*255 */
+    static int div255(int v) {
+        return (v + 127) / MAX_8;
+    }
+}
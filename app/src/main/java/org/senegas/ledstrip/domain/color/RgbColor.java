@@ -15,6 +15,10 @@ import java.util.Objects;
      public static final RgbColor PINK = new RgbColor(255, 20, 147);
      public static final RgbColor GRAY = new RgbColor(128, 128, 128);
 
+    // Direct-mapped cache of recently used colors; entries are immutable so races only cost a miss
+    private static final int CACHE_BITS = 12;
+    private static final RgbColor[] CACHE = new RgbColor[1 << CACHE_BITS];
+
     private final int red;
     private final int green;
     private final int blue;
@@ -28,6 +32,56 @@ import java.util.Objects;
         this.blue = blue;
     }
 
+    /**
+     * Returns a color for the components, reusing an interned instance when possible.
+     */
+    public static RgbColor of(int red, int green, int blue) {
+        validateComponent(red);
+        validateComponent(green);
+        validateComponent(blue);
+        return fromPackedRgb((red << 16) | (green << 8) | blue);
+    }
+
+    /**
+     * Returns the color for a packed 0xRRGGBB int; bits above 24 are ignored.
+     * Named constants are always returned as-is, other values come from a
+     * small cache so repeated lookups of frequent colors do not allocate.
+     */
+    public static RgbColor fromPackedRgb(int rgb) {
+        int value = rgb & 0xFFFFFF;
+        RgbColor named = named(value);
+        if (named != null) {
+            return named;
+        }
+
+        int slot = (value * 0x9E3779B1) >>> (32 - CACHE_BITS);
+        RgbColor cached = CACHE[slot];
+        if (cached != null && cached.toPackedRgb() == value) {
+            return cached;
+        }
+
+        RgbColor color = new RgbColor((value >> 16) & 0xFF, (value >> 8) & 0xFF, value & 0xFF);
+        CACHE[slot] = color;
+        return color;
+    }
+
+    private static RgbColor named(int rgb) {
+        return switch (rgb) {
+            case 0xFF0000 -> RED;
+            case 0x00FF00 -> GREEN;
+            case 0x0000FF -> BLUE;
+            case 0xFFFFFF -> WHITE;
+            case 0x000000 -> OFF;
+            case 0xFFFF00 -> YELLOW;
+            case 0x00FFFF -> CYAN;
+            case 0xFF00FF -> MAGENTA;
+            case 0xFF30FF -> ORANGE;
+            case 0xFF1493 -> PINK;
+            case 0x808080 -> GRAY;
+            default -> null;
+        };
+    }
+
     private static void validateComponent(int c) {
         if (c < 0 || c > 255) {
             throw new IllegalArgumentException("Color component must be 0..255");
@@ -46,13 +100,20 @@ import java.util.Objects;
         return blue;
     }
 
+    /**
+     * @return this color packed as 0xRRGGBB
+     */
+    public int toPackedRgb() {
+        return (red << 16) | (green << 8) | blue;
+    }
+
     public boolean isOff() {
         return red == 0 && green == 0 && blue == 0;
     }
 
     public RgbColor withBrightness(double factor) {
         if (factor < 0.0 || factor > 1.0) throw new IllegalArgumentException("factor 0..1");
-        return new RgbColor(
+        return of(
                 (int)Math.round(red * factor),
                 (int)Math.round(green * factor),
                 (int)Math.round(blue * factor)
@@ -66,7 +127,7 @@ import java.util.Objects;
          if (other == null) {
              throw new IllegalArgumentException("other color cannot be null");
          }
-         return new RgbColor(
+         return of(
                  (int) Math.round(red * (1 - ratio) + other.red * ratio),
                  (int) Math.round(green * (1 - ratio) + other.green * ratio),
                  (int) Math.round(blue * (1 - ratio) + other.blue * ratio)
@@ -14,6 +14,13 @@ public abstract class AbstractEffect implements Effect {
         return name;
     }
 
+    /**
+     * @return the name of a named effect, otherwise its class name
+     */
+    public static String nameOf(Effect effect) {
+        return effect instanceof AbstractEffect named ? named.name : effect.getClass().getSimpleName();
+    }
+
     @Override
     public final String toString() {
         return name;
@@ -0,0 +1,184 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Plays a {@link PeriodicEffect} from a pre-rendered cycle instead of
+ * computing it every frame, so a frame costs one copy into the strip.
+ *
+ * On {@link #prebake(int)}, or else on first use with a given strip length
+ * (on the render thread, costing that frame the whole bake), the source
+ * effect is reset and run
+ * off-screen for one period to get past its start-up, then one more period is
+ * recorded at the times the effect asks to be updated (or every
+ * {@code sampleMillis} for continuously animated effects). Playback shows that
+ * steady-state cycle from time 0. Cycles too large for the cache are not baked
+ * and the source effect runs live instead.
+ */
+public final class BakedEffect extends AbstractEffect {
+    public static final long DEFAULT_SAMPLE_MILLIS = 20;
+
+    private record BakeKey(Effect source, int ledCount, long sampleMillis) {
+    }
+
+    private final PeriodicEffect source;
+    private final BakedFrameCache cache;
+    private final long sampleMillis;
+
+    private BakeKey key;
+    private boolean live = false;
+    private BakedFrames lastFrames;
+    private int lastFrame = -1;
+
+    public BakedEffect(PeriodicEffect source) {
+        this(source, BakedFrameCache.shared(), DEFAULT_SAMPLE_MILLIS);
+    }
+
+    /**
+     * @param sampleMillis interval between baked frames of effects that animate continuously
+     */
+    public BakedEffect(PeriodicEffect source, BakedFrameCache cache, long sampleMillis) {
+        super(Objects.requireNonNull(source).toString());
+        if (sampleMillis <= 0) {
+            throw new IllegalArgumentException("Sample interval must be positive");
+        }
+        this.source = source;
+        this.cache = Objects.requireNonNull(cache);
+        this.sampleMillis = sampleMillis;
+    }
+
+    /**
+     * Bakes the cycle for strips of {@code ledCount} LEDs now, on the calling
+     * thread, so the first frame on such a strip does not stall the renderer.
+     * Like {@link #apply}, this runs the source effect: call it before handing
+     * the effect to an engine, not while one is rendering it.
+     *
+     * @return true if the cycle is baked, false if it is too large for the cache and will run live
+     */
+    public boolean prebake(int ledCount) {
+        if (ledCount <= 0) {
+            throw new IllegalArgumentException("LED count must be positive");
+        }
+        return frames(ledCount) != null;
+    }
+
+    @Override
+    public boolean apply(LedStrip strip, long timestampMillis) {
+        int ledCount = strip.getLength();
+        if (ledCount == 0) {
+            return false;
+        }
+        BakedFrames frames = frames(ledCount);
+        if (frames == null) {
+            return source.apply(strip, timestampMillis);
+        }
+
+        int frame = frames.frameAt(Math.floorMod(timestampMillis, frames.periodMillis()));
+        frames.render(frame, strip);
+        boolean changed = frames != lastFrames || frame != lastFrame;
+        lastFrames = frames;
+        lastFrame = frame;
+        return changed;
+    }
+
+    @Override
+    public long nextUpdateMillis(long timestampMillis) {
+        BakedFrames frames = lastFrames;
+        if (live || frames == null) {
+            return source.nextUpdateMillis(timestampMillis);
+        }
+        long phase = Math.floorMod(timestampMillis, frames.periodMillis());
+        return timestampMillis + frames.nextOffsetMillis(frames.frameAt(phase)) - phase;
+    }
+
+    @Override
+    public void reset() {
+        lastFrames = null;
+        lastFrame = -1;
+        if (live) {
+            source.reset();
+        }
+    }
+
+    private BakedFrames frames(int ledCount) {
+        if (key == null || key.ledCount() != ledCount) {
+            key = new BakeKey(source, ledCount, sampleMillis);
+            live = false;
+        }
+        if (live) {
+            return null;
+        }
+        BakedFrames frames = cache.get(key);
+        if (frames == null) {
+            frames = bake(ledCount);
+            source.reset();
+            if (frames == null) {
+                live = true;
+                return null;
+            }
+            cache.put(key, frames);
+        }
+        return frames;
+    }
+
+    private BakedFrames bake(int ledCount) {
+        long period = source.periodMillis(ledCount);
+        if (period <= 0) {
+            throw new IllegalStateException(source + " reports a non-positive period");
+        }
+        LedStrip strip = LedStrip.ofLength(ledCount);
+        source.reset();
+
+        long t = 0;
+        while (t < period) {
+            source.apply(strip, t);
+            t = next(t);
+        }
+
+        long[] offsets = new long[64];
+        int[] pixels = new int[64 * ledCount];
+        int count = 0;
+        boolean changed = true;
+        // Nothing scheduled exactly at the period start: carry the warm-up state into frame 0
+        if (t > period) {
+            copyPixels(strip, pixels, 0);
+            count = 1;
+            changed = false;
+        }
+        while (t < 2 * period) {
+            if (source.apply(strip, t) || changed) {
+                if (!cache.fits(BakedFrames.sizeInBytes(count + 1, ledCount))) {
+                    return null;
+                }
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                    pixels = Arrays.copyOf(pixels, count * 2 * ledCount);
+                }
+                offsets[count] = t - period;
+                copyPixels(strip, pixels, count * ledCount);
+                count++;
+                changed = false;
+            }
+            t = next(t);
+        }
+
+        IntBuffer stored = cache.allocate(count * ledCount);
+        stored.put(0, pixels, 0, count * ledCount);
+        return new BakedFrames(period, Arrays.copyOf(offsets, count), stored, ledCount);
+    }
+
+    private long next(long t) {
+        long next = source.nextUpdateMillis(t);
+        return next > t ? next : t + sampleMillis;
+    }
+
+    private static void copyPixels(LedStrip strip, int[] target, int offset) {
+        for (int i = 0; i < strip.getLength(); i++) {
+            target[offset + i] = strip.getPixelRgb(i);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.senegas.ledstrip.domain.effect;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Size-capped store of baked effect cycles, shared by {@link BakedEffect}s.
+ *
+ * Entries are evicted least-recently-played first once the total size would
+ * exceed the cap. Frames live either on the heap or in direct buffers, which
+ * keeps large caches out of the garbage collector's way.
+ */
+public final class BakedFrameCache {
+    public static final long DEFAULT_MAX_BYTES = 32L << 20;
+
+    public enum Storage {
+        HEAP,
+        OFF_HEAP
+    }
+
+    private static final BakedFrameCache SHARED = new BakedFrameCache(DEFAULT_MAX_BYTES, Storage.HEAP);
+
+    private final long maxBytes;
+    private final Storage storage;
+    private final Map<Object, BakedFrames> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes = 0;
+
+    public BakedFrameCache(long maxBytes, Storage storage) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.storage = Objects.requireNonNull(storage);
+    }
+
+    /**
+     * @return the cache used by baked effects that are not given one
+     */
+    public static BakedFrameCache shared() {
+        return SHARED;
+    }
+
+    synchronized BakedFrames get(Object key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(Object key, BakedFrames frames) {
+        BakedFrames previous = entries.put(key, frames);
+        if (previous != null) {
+            usedBytes -= previous.sizeInBytes();
+        }
+        usedBytes += frames.sizeInBytes();
+
+        Iterator<BakedFrames> eldest = entries.values().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            BakedFrames evicted = eldest.next();
+            if (evicted == frames) {
+                break;
+            }
+            usedBytes -= evicted.sizeInBytes();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return whether a cycle of that size can be cached at all
+     */
+    boolean fits(long bytes) {
+        return bytes <= maxBytes;
+    }
+
+    IntBuffer allocate(int values) {
+        return storage == Storage.HEAP
+                ? IntBuffer.allocate(values)
+                : ByteBuffer.allocateDirect(values * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+}
@@ -0,0 +1,55 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * One pre-rendered cycle of an effect: frame start offsets within the period
+ * and the packed colors of every frame, back to back.
+ */
+final class BakedFrames {
+    private final long periodMillis;
+    private final long[] offsetsMillis;
+    private final IntBuffer pixels;
+    private final int ledCount;
+
+    BakedFrames(long periodMillis, long[] offsetsMillis, IntBuffer pixels, int ledCount) {
+        this.periodMillis = periodMillis;
+        this.offsetsMillis = offsetsMillis;
+        this.pixels = pixels;
+        this.ledCount = ledCount;
+    }
+
+    static long sizeInBytes(int frameCount, int ledCount) {
+        return (long) frameCount * (ledCount * Integer.BYTES + Long.BYTES);
+    }
+
+    long sizeInBytes() {
+        return sizeInBytes(offsetsMillis.length, ledCount);
+    }
+
+    long periodMillis() {
+        return periodMillis;
+    }
+
+    /**
+     * @return the frame showing at {@code phaseMillis} into the period
+     */
+    int frameAt(long phaseMillis) {
+        int index = Arrays.binarySearch(offsetsMillis, phaseMillis);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * @return offset within the period at which the frame after {@code frame} starts
+     */
+    long nextOffsetMillis(int frame) {
+        return frame + 1 < offsetsMillis.length ? offsetsMillis[frame + 1] : periodMillis;
+    }
+
+    void render(int frame, LedStrip strip) {
+        strip.setPixelsRgb(pixels, frame * ledCount);
+    }
+}
@@ -1,8 +1,11 @@
 package org.senegas.ledstrip.domain.effect;
 
+import org.senegas.ledstrip.domain.color.PackedRgb;
 import org.senegas.ledstrip.domain.color.RgbColor;
 import org.senegas.ledstrip.domain.led.LedStrip;
 
+import java.util.Arrays;
+
 /**
  * Breathing effect that mimics the standby breathing of well-known i-Devices.
  *
@@ -10,19 +13,24 @@ import org.senegas.ledstrip.domain.led.LedStrip;
  * extremes (fully off/on) and faster in the middle, creating a natural
  * breathing pattern.
  *
- * Based on the WS2812FX mode_breath implementation.
+ * Based on the WS2812FX mode_breath implementation. Unlike it, the step shown
+ * is looked up from the time rather than advanced once per call, so the
+ * breath keeps its pace however often the effect is rendered.
  */
-public final class BreathEffect extends AbstractEffect {
+public final class BreathEffect extends AbstractEffect implements PeriodicEffect {
 
     private static final int LUM_MIN = 15;
     private static final int LUM_MAX = 255;
     private static final int LUM_RANGE = 512;  // Full cycle: 15 -> 255 -> 15
+    private static final long CYCLE_MILLIS = cycleMillis();
+    // Offset of each luminance step in the cycle: a step is held for the delay of the next one
+    private static final long[] STEP_STARTS = stepStarts();
 
-    private final RgbColor baseColor;
-    private final RgbColor backgroundColor;
+    private final int baseColor;
+    private final int backgroundColor;
 
-    private int luminanceStep = LUM_MIN;
-    private long lastStepTime = 0;
+    // Step shown on the strip, counted from time 0, -1 before the first frame
+    private long renderedStep = -1;
 
     /**
      * Creates a breath effect with the specified color.
@@ -45,8 +53,8 @@ public final class BreathEffect extends AbstractEffect {
         if (backgroundColor == null) {
             throw new IllegalArgumentException("Background color cannot be null");
         }
-        this.baseColor = baseColor;
-        this.backgroundColor = backgroundColor;
+        this.baseColor = baseColor.toPackedRgb();
+        this.backgroundColor = backgroundColor.toPackedRgb();
     }
 
     @Override
@@ -55,36 +63,63 @@ public final class BreathEffect extends AbstractEffect {
             return false;
         }
 
-        // Calculate current delay based on luminance position
-        long delay = calculateDelay(luminanceStep);
-
-        if (timeMillis - lastStepTime < delay) {
+        int index = stepAt(Math.floorMod(timeMillis, CYCLE_MILLIS));
+        long step = Math.floorDiv(timeMillis, CYCLE_MILLIS) * STEP_STARTS.length + index;
+        if (step == renderedStep) {
             return false;
         }
 
-        lastStepTime = timeMillis;
-
-        // Calculate current luminance (0-255 scale)
-        int currentLum = luminanceStep;
-        if (currentLum > LUM_MAX) {
-            // Fade out phase: mirror the luminance
-            currentLum = LUM_RANGE - 1 - currentLum;
-        }
+        renderedStep = step;
 
         // Blend between background and base color based on luminance
-        RgbColor blendedColor = backgroundColor.blend(baseColor, currentLum / 255.0);
+        int blendedColor = PackedRgb.blend8(backgroundColor, baseColor, luminanceOf(index));
 
         // Apply color to entire strip
-        strip.fill(blendedColor);
+        strip.fillRgb(blendedColor);
 
-        // Advance to next step
-        luminanceStep += 2;
-        if (luminanceStep >= (LUM_RANGE - LUM_MIN)) {
-            luminanceStep = LUM_MIN;
-            // Optional: mark cycle complete if needed
+        return true;
+    }
+
+    @Override
+    public long nextUpdateMillis(long timestampMillis) {
+        long offset = Math.floorMod(timestampMillis, CYCLE_MILLIS);
+        int next = stepAt(offset) + 1;
+        long nextStart = next < STEP_STARTS.length ? STEP_STARTS[next] : CYCLE_MILLIS;
+        return timestampMillis - offset + nextStart;
+    }
+
+    @Override
+    public long periodMillis(int ledCount) {
+        return CYCLE_MILLIS;
+    }
+
+    /* Sum of the delays of every luminance step in one breath */
+    private static long cycleMillis() {
+        long total = 0;
+        for (int lum = LUM_MIN; lum < LUM_RANGE - LUM_MIN; lum += 2) {
+            total += calculateDelay(lum);
         }
+        return total;
+    }
 
-        return true;
+    private static long[] stepStarts() {
+        long[] starts = new long[(LUM_RANGE - 2 * LUM_MIN + 1) / 2];
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] = starts[i - 1] + calculateDelay(LUM_MIN + 2 * i);
+        }
+        return starts;
+    }
+
+    /* Index of the step shown at an offset within the cycle */
+    private static int stepAt(long offsetMillis) {
+        int found = Arrays.binarySearch(STEP_STARTS, offsetMillis);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    /* Luminance (0-255) of a step, mirrored in the fade out half */
+    private static int luminanceOf(int index) {
+        int lum = LUM_MIN + 2 * index;
+        return lum > LUM_MAX ? LUM_RANGE - 1 - lum : lum;
     }
 
     /**
@@ -97,7 +132,7 @@ public final class BreathEffect extends AbstractEffect {
      * @param lum Current luminance step (15-511)
      * @return Delay in milliseconds
      */
-    private long calculateDelay(int lum) {
+    private static long calculateDelay(int lum) {
         int effectiveLum = lum;
         if (effectiveLum > LUM_MAX) {
             effectiveLum = LUM_RANGE - 1 - effectiveLum;
@@ -125,19 +160,14 @@ public final class BreathEffect extends AbstractEffect {
 
     @Override
     public void reset() {
-        luminanceStep = LUM_MIN;
-        lastStepTime = 0;
+        renderedStep = -1;
     }
 
     /**
-     * Gets the current luminance value (for debugging/testing).
+     * Gets the luminance of the last rendered frame (for debugging/testing).
      * @return Current luminance (0-255)
      */
     public int getCurrentLuminance() {
-        int lum = luminanceStep;
-        if (lum > LUM_MAX) {
-            lum = LUM_RANGE - 1 - lum;
-        }
-        return lum;
+        return luminanceOf((int) (Math.max(renderedStep, 0) % STEP_STARTS.length));
     }
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.senegas.ledstrip.domain.color.RgbColor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Factories for the effects shipped with the application, registered in
+ * {@code META-INF/services} in the order they are listed to users.
+ */
+public final class BuiltInEffectFactories {
+
+    private BuiltInEffectFactories() {
+    }
+
+    public static final class MovingDot implements EffectFactory {
+        @Override
+        public String getName() {
+            return "Moving Dot";
+        }
+
+        @Override
+        public Map<String, String> getDefaultParameters() {
+            return Map.of("color", "BLUE", "periodMillis", "2000");
+        }
+
+        @Override
+        public AbstractEffect create(EffectParameters parameters, int ledCount) {
+            return new MovingDotEffect(parameters.getColor("color", RgbColor.BLUE),
+                    parameters.getLong("periodMillis", 2000));
+        }
+    }
+
+    public static final class PingPongDot implements EffectFactory {
+        @Override
+        public String getName() {
+            return "Ping-Pong Dot";
+        }
+
+        @Override
+        public AbstractEffect create(EffectParameters parameters, int ledCount) {
+            return new PingPongDotEffect();
+        }
+    }
+
+    public static final class DualBouncingDots implements EffectFactory {
+        @Override
+        public String getName() {
+            return "Dual Bouncing Dots";
+        }
+
+        @Override
+        public AbstractEffect create(EffectParameters parameters, int ledCount) {
+            return new DualBouncingDotsEffect();
+        }
+    }
+
+    public static final class Rainbow implements EffectFactory {
+        @Override
+        public String getName() {
+            return "Rainbow";
+        }
+
+        @Override
+        public AbstractEffect create(EffectParameters parameters, int ledCount) {
+            return new RainbowEffect();
+        }
+    }
+
+    public static final class Breath implements EffectFactory {
+        @Override
+        public String getName() {
+            return "Breath";
+        }
+
+        @Override
+        public Map<String, String> getDefaultParameters() {
+            return Map.of("color", "BLUE");
+        }
+
+        @Override
+        public AbstractEffect create(EffectParameters parameters, int ledCount) {
+            return new BreathEffect(parameters.getColor("color", RgbColor.BLUE));
+        }
+    }
+
+    public static final class ColorWipe implements EffectFactory {
+        @Override
+        public String getName() {
+            return "Color Wipe";
+        }
+
+        @Override
+        public Map<String, String> getDefaultParameters() {
+            return Map.of("color", "RED", "background", "OFF", "stepMillis", "30");
+        }
+
+        @Override
+        public AbstractEffect create(EffectParameters parameters, int ledCount) {
+            return new ColorWipeEffect(parameters.getColor("color", RgbColor.RED),
+                    parameters.getColor("background", RgbColor.OFF),
+                    parameters.getLong("stepMillis", 30));
+        }
+    }
+
+    public static final class RunningLights implements EffectFactory {
+        @Override
+        public String getName() {
+            return "Running Lights";
+        }
+
+        @Override
+        public Map<String, String> getDefaultParameters() {
+            return Map.of("color", "RED", "background", "BLUE", "stepMillis", "30");
+        }
+
+        @Override
+        public AbstractEffect create(EffectParameters parameters, int ledCount) {
+            return new RunningLightsEffect(parameters.getColor("color", RgbColor.RED),
+                    parameters.getColor("background", RgbColor.BLUE),
+                    parameters.getLong("stepMillis", 30));
+        }
+    }
+
+    public static final class RainbowDot implements EffectFactory {
+        @Override
+        public String getName() {
+            return "Rainbow + Dot";
+        }
+
+        @Override
+        public Map<String, String> getDefaultParameters() {
+            return Map.of("rainbowOpacity", "96", "color", "WHITE", "periodMillis", "2000");
+        }
+
+        @Override
+        public AbstractEffect create(EffectParameters parameters, int ledCount) {
+            return new LayeredEffect(getName(), List.of(
+                    new LayeredEffect.Layer(new RainbowEffect(), LayeredEffect.BlendMode.NORMAL,
+                            parameters.getInt("rainbowOpacity", 96)),
+                    new LayeredEffect.Layer(new MovingDotEffect(parameters.getColor("color", RgbColor.WHITE),
+                            parameters.getLong("periodMillis", 2000)), LayeredEffect.BlendMode.ADD)));
+        }
+    }
+}
@@ -132,6 +132,11 @@ public final class ColorWipeEffect extends AbstractEffect {
         strip.setPixel(position, color2);
     }
 
+    @Override
+    public long nextUpdateMillis(long timestampMillis) {
+        return lastStepTime + stepDurationMs;
+    }
+
     @Override
     public void reset() {
         step = 0;
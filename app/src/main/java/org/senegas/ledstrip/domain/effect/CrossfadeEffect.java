@@ -0,0 +1,162 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.senegas.ledstrip.domain.color.PackedRgb;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.util.Objects;
+
+/**
+ * Timed transition from one effect to another.
+ *
+ * Both effects keep running during the transition, each on its own scratch
+ * strip, and the target strip receives their per-pixel blend. The scratch
+ * strips are created once per transition, so frames do not allocate. When
+ * the transition completes the incoming effect's strip is copied over the
+ * target and the incoming effect is then applied directly.
+ */
+public final class CrossfadeEffect extends AbstractEffect {
+
+    private final Effect outgoing;
+    private final Effect incoming;
+    private final long durationNanos;
+    // Set for a transition reversed mid-way: the incoming effect is already running
+    private final boolean resume;
+
+    private LedStrip outgoingStrip;
+    private LedStrip incomingStrip;
+    private long startNanos;
+    // Progress to resume from on the first frame of a reversed transition
+    private long resumeElapsedNanos;
+    private long elapsedNanos;
+    private boolean begun = false;
+    private boolean complete = false;
+
+    /**
+     * @param outgoing effect currently rendered on the strip
+     * @param incoming effect to transition to; it is reset on the first frame
+     * @param durationMillis transition time, 0 for an immediate cut
+     */
+    public CrossfadeEffect(Effect outgoing, Effect incoming, long durationMillis) {
+        this(outgoing, incoming, checkDuration(durationMillis) * NANOS_PER_MILLI, false);
+    }
+
+    private CrossfadeEffect(Effect outgoing, Effect incoming, long durationNanos, boolean resume) {
+        super("Crossfade");
+        this.outgoing = Objects.requireNonNull(outgoing);
+        this.incoming = Objects.requireNonNull(incoming);
+        this.durationNanos = durationNanos;
+        this.resume = resume;
+    }
+
+    private static long checkDuration(long durationMillis) {
+        if (durationMillis < 0) {
+            throw new IllegalArgumentException("Duration cannot be negative");
+        }
+        return durationMillis;
+    }
+
+    /**
+     * Transition back to the outgoing effect, starting from the current blend,
+     * for a switch undone before this one completes. Neither effect is reset
+     * and the way back takes as long as this transition has run so far.
+     */
+    public CrossfadeEffect reversed() {
+        CrossfadeEffect back = new CrossfadeEffect(incoming, outgoing, durationNanos, true);
+        if (incomingStrip != null) {
+            back.outgoingStrip = incomingStrip;
+            back.incomingStrip = outgoingStrip;
+            back.resumeElapsedNanos = durationNanos - elapsedNanos;
+        } else {
+            back.resumeElapsedNanos = durationNanos;
+        }
+        return back;
+    }
+
+    @Override
+    public boolean apply(LedStrip strip, long timeMillis) {
+        return applyNanos(strip, timeMillis * NANOS_PER_MILLI);
+    }
+
+    @Override
+    public boolean applyNanos(LedStrip strip, long timeNanos) {
+        if (complete) {
+            return incoming.applyNanos(strip, timeNanos);
+        }
+
+        int length = strip.getLength();
+        if (!begun || outgoingStrip.getLength() != length) {
+            begin(strip, timeNanos);
+        }
+
+        outgoing.applyNanos(outgoingStrip, timeNanos);
+        incoming.applyNanos(incomingStrip, timeNanos);
+
+        long elapsed = timeNanos - startNanos;
+        elapsedNanos = elapsed;
+        if (elapsed >= durationNanos) {
+            strip.copyFrom(incomingStrip);
+            complete = true;
+            outgoingStrip = null;
+            incomingStrip = null;
+            return true;
+        }
+
+        int amount = (int) (elapsed * PackedRgb.MAX_8 / durationNanos);
+        for (int i = 0; i < length; i++) {
+            strip.setPixelRgb(i, PackedRgb.blend8(
+                    outgoingStrip.getPixelRgb(i), incomingStrip.getPixelRgb(i), amount));
+        }
+        return true;
+    }
+
+    private void begin(LedStrip strip, long timeNanos) {
+        // A reversed transition inherits the scratch strips of the one it undoes
+        if (outgoingStrip == null || outgoingStrip.getLength() != strip.getLength()) {
+            // The outgoing effect continues from what it has drawn so far
+            outgoingStrip = LedStrip.ofLength(strip.getLength());
+            outgoingStrip.copyFrom(strip);
+            incomingStrip = LedStrip.ofLength(strip.getLength());
+            if (resume) {
+                // Already running: it also continues from what is on the strip
+                incomingStrip.copyFrom(strip);
+            } else {
+                incoming.reset();
+            }
+        }
+        startNanos = timeNanos - resumeElapsedNanos;
+        begun = true;
+    }
+
+    @Override
+    public long nextUpdateNanos(long timestampNanos) {
+        return complete ? incoming.nextUpdateNanos(timestampNanos) : timestampNanos;
+    }
+
+    @Override
+    public long nextUpdateMillis(long timestampMillis) {
+        return complete ? incoming.nextUpdateMillis(timestampMillis) : timestampMillis;
+    }
+
+    /**
+     * @return true once the incoming effect fully owns the strip
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public Effect getIncoming() {
+        return incoming;
+    }
+
+    public Effect getOutgoing() {
+        return outgoing;
+    }
+
+    /**
+     * @return true if the effect is rendered as part of this transition, including nested ones
+     */
+    public boolean involves(Effect effect) {
+        return incoming == effect || outgoing == effect
+                || outgoing instanceof CrossfadeEffect nested && nested.involves(effect);
+    }
+}
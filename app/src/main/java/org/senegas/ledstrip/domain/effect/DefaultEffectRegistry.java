@@ -16,7 +16,11 @@ public class DefaultEffectRegistry  implements EffectRegistry {
                 new RainbowEffect(),
                 new BreathEffect(RgbColor.BLUE),
                 new ColorWipeEffect(RgbColor.RED, RgbColor.OFF, 30),
-                new RunningLightsEffect(RgbColor.RED, RgbColor.BLUE, 30)
+                new RunningLightsEffect(RgbColor.RED, RgbColor.BLUE, 30),
+                new LayeredEffect("Rainbow + Dot", List.of(
+                        new LayeredEffect.Layer(new RainbowEffect(), LayeredEffect.BlendMode.NORMAL, 96),
+                        new LayeredEffect.Layer(new MovingDotEffect(RgbColor.WHITE, 2000),
+                                LayeredEffect.BlendMode.ADD)))
         );
     }
 
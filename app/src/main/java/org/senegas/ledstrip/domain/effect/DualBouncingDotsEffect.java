@@ -51,6 +51,11 @@ public final class DualBouncingDotsEffect extends AbstractEffect {
         return true;
     }
 
+    @Override
+    public long nextUpdateMillis(long timestampMillis) {
+        return lastStepTime + STEP_DURATION_MS;
+    }
+
     @Override
     public void reset() {
         leftPos = 0;
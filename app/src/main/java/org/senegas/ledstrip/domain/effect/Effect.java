@@ -3,6 +3,8 @@ package org.senegas.ledstrip.domain.effect;
 import org.senegas.ledstrip.domain.led.LedStrip;
 
 public interface Effect {
+    long NANOS_PER_MILLI = 1_000_000L;
+
     /**
      * Apply the effect to the logical strip. Implementations should not push to hardware;
      * return true if they modified state (caller can then call adapter).
@@ -13,6 +15,41 @@ public interface Effect {
      */
     boolean apply(LedStrip strip, long timestampMillis);
 
+    /**
+     * Nanosecond-resolution variant of {@link #apply}, called by engines with a
+     * monotonic clock. Effects that animate continuously override it to avoid
+     * millisecond quantization; the default truncates to milliseconds.
+     *
+     * @param timestampNanos monotonic time in ns
+     * @return true if state changed
+     */
+    default boolean applyNanos(LedStrip strip, long timestampNanos) {
+        return apply(strip, timestampNanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Earliest time at which {@link #apply} may change the strip again, so a
+     * scheduler can sleep until then instead of polling. Continuously animated
+     * effects keep the default, meaning "render on every frame".
+     *
+     * @param timestampMillis time of the last call to {@link #apply}
+     * @return timestamp in ms of the next expected change, {@code timestampMillis} if unknown
+     */
+    default long nextUpdateMillis(long timestampMillis) {
+        return timestampMillis;
+    }
+
+    /**
+     * Nanosecond variant of {@link #nextUpdateMillis}.
+     */
+    default long nextUpdateNanos(long timestampNanos) {
+        long millis = nextUpdateMillis(timestampNanos / NANOS_PER_MILLI);
+        if (millis >= Long.MAX_VALUE / NANOS_PER_MILLI) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(timestampNanos, millis * NANOS_PER_MILLI);
+    }
+
     default void reset() {
         // no-op for stateless effects
     }
@@ -0,0 +1,35 @@
+package org.senegas.ledstrip.domain.effect;
+
+import java.util.Map;
+
+/**
+ * Creates instances of one named effect. Implementations are discovered by
+ * {@link ServiceLoaderEffectRegistry} through {@link java.util.ServiceLoader},
+ * so they need a public no-argument constructor and an entry in
+ * {@code META-INF/services/org.senegas.ledstrip.domain.effect.EffectFactory}.
+ * Factories should be cheap to construct; the effects themselves are only
+ * created when first used.
+ */
+public interface EffectFactory {
+
+    /**
+     * @return name of the created effects, unique among factories ignoring case
+     */
+    String getName();
+
+    /**
+     * @return every parameter {@link #create} understands, with its default value
+     */
+    default Map<String, String> getDefaultParameters() {
+        return Map.of();
+    }
+
+    /**
+     * Creates a new, independent effect instance.
+     *
+     * @param parameters settings, completed with {@link #getDefaultParameters()}
+     * @param ledCount length of the strip the effect will run on, 0 if unknown
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    AbstractEffect create(EffectParameters parameters, int ledCount);
+}
@@ -0,0 +1,99 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.senegas.ledstrip.domain.color.RgbColor;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable string settings for an {@link EffectFactory}, e.g.
+ * {@code color=#FF8000, stepMillis=30}. Parameters with equal content are
+ * equal, so they can key a cache.
+ */
+public record EffectParameters(Map<String, String> values) {
+    public static final EffectParameters NONE = new EffectParameters(Map.of());
+
+    public EffectParameters {
+        values = Map.copyOf(values);
+    }
+
+    /**
+     * @param keysAndValues alternating keys and values
+     */
+    public static EffectParameters of(String... keysAndValues) {
+        if (keysAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Parameters must come in key/value pairs");
+        }
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            values.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return new EffectParameters(values);
+    }
+
+    /**
+     * @return these parameters, completed with the defaults they do not override
+     */
+    public EffectParameters withDefaults(Map<String, String> defaults) {
+        if (values.keySet().containsAll(defaults.keySet())) {
+            return this;
+        }
+        Map<String, String> merged = new HashMap<>(defaults);
+        merged.putAll(values);
+        return new EffectParameters(merged);
+    }
+
+    public String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + key + " must be a number, not " + value, e);
+        }
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return Math.toIntExact(getLong(key, defaultValue));
+    }
+
+    /**
+     * Reads a color given as {@code #RRGGBB} or as the name of an
+     * {@link RgbColor} constant such as {@code RED}.
+     */
+    public RgbColor getColor(String key, RgbColor defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        String color = value.trim();
+        if (color.startsWith("#") && color.length() == 7) {
+            try {
+                return RgbColor.fromPackedRgb(Integer.parseInt(color.substring(1), 16));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Parameter " + key + " is not a color: " + value, e);
+            }
+        }
+        return switch (color.toUpperCase(Locale.ROOT)) {
+            case "RED" -> RgbColor.RED;
+            case "GREEN" -> RgbColor.GREEN;
+            case "BLUE" -> RgbColor.BLUE;
+            case "WHITE" -> RgbColor.WHITE;
+            case "OFF", "BLACK" -> RgbColor.OFF;
+            case "YELLOW" -> RgbColor.YELLOW;
+            case "CYAN" -> RgbColor.CYAN;
+            case "MAGENTA" -> RgbColor.MAGENTA;
+            case "ORANGE" -> RgbColor.ORANGE;
+            case "PINK" -> RgbColor.PINK;
+            case "GRAY" -> RgbColor.GRAY;
+            default -> throw new IllegalArgumentException("Parameter " + key + " is not a color: " + value);
+        };
+    }
+}
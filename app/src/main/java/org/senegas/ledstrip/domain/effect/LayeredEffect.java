@@ -0,0 +1,157 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.senegas.ledstrip.domain.color.PackedRgb;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Runs several effects at once as a stack of layers, bottom first.
+ *
+ * Each layer renders onto its own scratch strip; the layers are then merged
+ * pixel by pixel in one pass over packed colors, and the result is written
+ * to the target strip in one bulk update. LEDs a layer leaves turned off are
+ * transparent, so e.g. a {@link MovingDotEffect} over a {@link RainbowEffect}
+ * shows the dot on the rainbow. Frames where no layer changed are skipped.
+ */
+public final class LayeredEffect extends AbstractEffect {
+
+    public enum BlendMode {
+        /** The layer's color replaces what is below. */
+        NORMAL,
+        /** Channels are added, saturating at full brightness. */
+        ADD,
+        /** Channels are multiplied, darkening what is below. */
+        MULTIPLY,
+        /** Inverse of multiplying the inverses, brightening what is below. */
+        SCREEN,
+        /** The brighter of the two, per channel. */
+        MAX
+    }
+
+    /**
+     * @param opacity 0 (invisible) to 255 (fully blended)
+     */
+    public record Layer(Effect effect, BlendMode mode, int opacity) {
+        public Layer {
+            Objects.requireNonNull(effect);
+            Objects.requireNonNull(mode);
+            if (opacity < 0 || opacity > PackedRgb.MAX_8) {
+                throw new IllegalArgumentException("Opacity must be between 0 and 255");
+            }
+        }
+
+        public Layer(Effect effect, BlendMode mode) {
+            this(effect, mode, PackedRgb.MAX_8);
+        }
+    }
+
+    private final Effect[] effects;
+    private final BlendMode[] modes;
+    private final int[] opacities;
+
+    private LedStrip[] layerStrips;
+    private int[] composed;
+    private boolean recompose = true;
+
+    public LayeredEffect(Layer... layers) {
+        this("Layered", List.of(layers));
+    }
+
+    public LayeredEffect(String name, List<Layer> layers) {
+        super(name);
+        if (layers.isEmpty()) {
+            throw new IllegalArgumentException("At least one layer is required");
+        }
+        int count = layers.size();
+        this.effects = new Effect[count];
+        this.modes = new BlendMode[count];
+        this.opacities = new int[count];
+        for (int l = 0; l < count; l++) {
+            Layer layer = layers.get(l);
+            effects[l] = layer.effect();
+            modes[l] = layer.mode();
+            opacities[l] = layer.opacity();
+        }
+    }
+
+    @Override
+    public boolean apply(LedStrip strip, long timestampMillis) {
+        return applyNanos(strip, timestampMillis * NANOS_PER_MILLI);
+    }
+
+    @Override
+    public boolean applyNanos(LedStrip strip, long timestampNanos) {
+        int length = strip.getLength();
+        if (length == 0) {
+            return false;
+        }
+        if (composed == null || composed.length != length) {
+            layerStrips = new LedStrip[effects.length];
+            for (int l = 0; l < effects.length; l++) {
+                layerStrips[l] = LedStrip.ofLength(length);
+            }
+            composed = new int[length];
+            recompose = true;
+        }
+
+        boolean changed = recompose;
+        for (int l = 0; l < effects.length; l++) {
+            changed |= effects[l].applyNanos(layerStrips[l], timestampNanos);
+        }
+        if (!changed) {
+            return false;
+        }
+        recompose = false;
+
+        for (int i = 0; i < length; i++) {
+            int rgb = 0;
+            for (int l = 0; l < effects.length; l++) {
+                LedStrip layer = layerStrips[l];
+                if (!layer.isOn(i)) {
+                    continue;
+                }
+                int top = layer.getPixelRgb(i);
+                int mixed = switch (modes[l]) {
+                    case NORMAL -> top;
+                    case ADD -> PackedRgb.add(rgb, top);
+                    case MULTIPLY -> PackedRgb.multiply(rgb, top);
+                    case SCREEN -> PackedRgb.screen(rgb, top);
+                    case MAX -> PackedRgb.max(rgb, top);
+                };
+                int opacity = opacities[l];
+                rgb = opacity == PackedRgb.MAX_8 ? mixed : PackedRgb.blend8(rgb, mixed, opacity);
+            }
+            composed[i] = rgb;
+        }
+        strip.setPixelsRgb(composed);
+        return true;
+    }
+
+    @Override
+    public long nextUpdateNanos(long timestampNanos) {
+        long next = Long.MAX_VALUE;
+        for (Effect effect : effects) {
+            next = Math.min(next, effect.nextUpdateNanos(timestampNanos));
+        }
+        return next;
+    }
+
+    @Override
+    public long nextUpdateMillis(long timestampMillis) {
+        long next = Long.MAX_VALUE;
+        for (Effect effect : effects) {
+            next = Math.min(next, effect.nextUpdateMillis(timestampMillis));
+        }
+        return next;
+    }
+
+    @Override
+    public void reset() {
+        for (Effect effect : effects) {
+            effect.reset();
+        }
+        recompose = true;
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Objects;
 public class MovingDotEffect extends AbstractEffect {
     private final RgbColor color;
     private final long periodMillis; // time to complete one cycle
+    private int lastLedCount;
 
     public MovingDotEffect(RgbColor color, long periodMillis) {
         super("Moving Dot");
@@ -22,28 +23,42 @@ public class MovingDotEffect extends AbstractEffect {
         if (numberOfLed == 0) {
             return false;
         }
+        lastLedCount = numberOfLed;
 
         long t = timestampMillis % periodMillis;
         double fraction = (double)t / periodMillis;
         int pos = (int)Math.floor(fraction * numberOfLed);
 
         // only update if different from previous colors (simplified)
+        int rgb = color.toPackedRgb();
         boolean changed = false;
         for (int i = 0; i < numberOfLed; i++) {
             if (i == pos) {
-                if (!strip.getLed(i).getColor().equals(color) || !strip.getLed(i).isOn()) {
-                    strip.getLed(i).setColor(color);
-                    strip.getLed(i).turnOn();
+                if (strip.getPixelRgb(i) != rgb || !strip.isOn(i)) {
+                    strip.setPixelRgb(i, rgb);
                     changed = true;
                 }
             } else {
-                if (strip.getLed(i).isOn() || !strip.getLed(i).getColor().isOff()) {
-                    strip.getLed(i).setColor(RgbColor.OFF);
-                    strip.getLed(i).turnOff();
+                if (strip.isOn(i)) {
+                    strip.setPixelRgb(i, 0);
+                    strip.turnOff(i);
                     changed = true;
                 }
             }
         }
         return changed;
     }
+
+    @Override
+    public long nextUpdateMillis(long timestampMillis) {
+        if (lastLedCount == 0) {
+            return timestampMillis;
+        }
+        // The dot moves when the cycle position crosses the next LED boundary
+        long cycleStart = timestampMillis - (timestampMillis % periodMillis);
+        long t = timestampMillis - cycleStart;
+        long pos = t * lastLedCount / periodMillis;
+        long boundary = ((pos + 1) * periodMillis + lastLedCount - 1) / lastLedCount;
+        return cycleStart + boundary;
+    }
 }
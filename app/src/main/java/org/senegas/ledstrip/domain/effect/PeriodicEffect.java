@@ -0,0 +1,15 @@
+package org.senegas.ledstrip.domain.effect;
+
+/**
+ * Effect whose output repeats: after its first period, the frame shown at
+ * time {@code t} is the one shown at {@code t + periodMillis}, for a given
+ * strip length and set of parameters. Such effects can be pre-rendered once
+ * by {@link BakedEffect}.
+ */
+public interface PeriodicEffect extends Effect {
+
+    /**
+     * @return length of one cycle in ms on a strip of {@code ledCount} LEDs
+     */
+    long periodMillis(int ledCount);
+}
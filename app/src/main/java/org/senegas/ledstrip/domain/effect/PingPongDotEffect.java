@@ -42,6 +42,11 @@ public final class PingPongDotEffect extends AbstractEffect {
         return true;
     }
 
+    @Override
+    public long nextUpdateMillis(long timestampMillis) {
+        return lastStepTime + STEP_DURATION_MS;
+    }
+
     @Override
     public void reset() {
         position = 0;
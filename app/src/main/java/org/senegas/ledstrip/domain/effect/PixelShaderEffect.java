@@ -0,0 +1,121 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Effect whose pixel colors are a pure function of index, strip length and time.
+ *
+ * Subclasses compute per-frame values once in {@link #beginFrame} and then
+ * color each pixel independently in {@link #shade}. Because pixels do not
+ * depend on each other, long strips are split into spans and shaded in
+ * parallel on a {@link ForkJoinPool}; short strips are shaded on the calling
+ * thread. The result is written to the strip in one bulk pass.
+ */
+public abstract class PixelShaderEffect extends AbstractEffect {
+
+    /** Strip length from which shading is split across the pool. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+    private static final int SPAN_LENGTH = 2048;
+
+    private final int parallelThreshold;
+    private final ForkJoinPool pool;
+
+    private int[] frame = new int[0];
+
+    protected PixelShaderEffect(String name) {
+        this(name, DEFAULT_PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param parallelThreshold strip length from which spans are shaded in parallel
+     * @param pool pool shading the spans
+     */
+    protected PixelShaderEffect(String name, int parallelThreshold, ForkJoinPool pool) {
+        super(name);
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        this.parallelThreshold = parallelThreshold;
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    /**
+     * Prepares the values shared by every pixel of a frame.
+     *
+     * @return false to skip this frame and leave the strip unchanged
+     */
+    protected boolean beginFrame(int ledCount, long timeNanos) {
+        return true;
+    }
+
+    /**
+     * Computes one pixel. Called concurrently for different indices, so it must
+     * only read state prepared by {@link #beginFrame}.
+     *
+     * @return packed 0xRRGGBB color of the LED at index
+     */
+    protected abstract int shade(int index, int ledCount, long timeNanos);
+
+    @Override
+    public final boolean apply(LedStrip strip, long timeMillis) {
+        return applyNanos(strip, timeMillis * NANOS_PER_MILLI);
+    }
+
+    @Override
+    public final boolean applyNanos(LedStrip strip, long timeNanos) {
+        int ledCount = strip.getLength();
+        if (ledCount == 0 || !beginFrame(ledCount, timeNanos)) {
+            return false;
+        }
+
+        if (frame.length != ledCount) {
+            frame = new int[ledCount];
+        }
+
+        if (ledCount >= parallelThreshold) {
+            pool.invoke(new ShadeSpan(frame, 0, ledCount, timeNanos));
+        } else {
+            shadeRange(frame, 0, ledCount, timeNanos);
+        }
+
+        strip.setPixelsRgb(frame);
+        return true;
+    }
+
+    private void shadeRange(int[] target, int from, int to, long timeNanos) {
+        int ledCount = target.length;
+        for (int i = from; i < to; i++) {
+            target[i] = shade(i, ledCount, timeNanos);
+        }
+    }
+
+    private final class ShadeSpan extends RecursiveAction {
+        private final int[] target;
+        private final int from;
+        private final int to;
+        private final long timeNanos;
+
+        private ShadeSpan(int[] target, int from, int to, long timeNanos) {
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.timeNanos = timeNanos;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPAN_LENGTH) {
+                shadeRange(target, from, to, timeNanos);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ShadeSpan(target, from, mid, timeNanos),
+                    new ShadeSpan(target, mid, to, timeNanos));
+        }
+    }
+}
@@ -1,36 +1,37 @@
 package org.senegas.ledstrip.domain.effect;
 
-import org.senegas.ledstrip.domain.color.RgbColor;
-import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.domain.color.PackedRgb;
 
-public final class RainbowEffect extends AbstractEffect {
+public final class RainbowEffect extends PixelShaderEffect implements PeriodicEffect {
 
     private static final double HUE_RANGE = 360.0;
     private static final double HUE_SPEED_DEG_PER_SEC = 90.0;
 
+    private double baseHue;
+
     public RainbowEffect() {
         super("Rainbow");
     }
 
     @Override
-    public boolean apply(LedStrip strip, long timeMillis) {
-        int ledCount = strip.getLength();
-        if (ledCount == 0) {
-            return false;
-        }
-
-        double timeSeconds = timeMillis / 1000.0;
-        double baseHue = (timeSeconds * HUE_SPEED_DEG_PER_SEC) % HUE_RANGE;
-
-        for (int i = 0; i < ledCount; i++) {
-            double hue = (baseHue + (HUE_RANGE * i / ledCount)) % HUE_RANGE;
-            strip.setPixel(i, hsvToRgb(hue, 1.0, 1.0));
-        }
+    public long periodMillis(int ledCount) {
+        return Math.round(HUE_RANGE / HUE_SPEED_DEG_PER_SEC * 1000);
+    }
 
+    @Override
+    protected boolean beginFrame(int ledCount, long timeNanos) {
+        double timeSeconds = timeNanos / 1_000_000_000.0;
+        baseHue = (timeSeconds * HUE_SPEED_DEG_PER_SEC) % HUE_RANGE;
         return true;
     }
 
-    private static RgbColor hsvToRgb(double hue, double saturation, double value) {
+    @Override
+    protected int shade(int index, int ledCount, long timeNanos) {
+        double hue = (baseHue + (HUE_RANGE * index / ledCount)) % HUE_RANGE;
+        return hsvToRgb(hue, 1.0, 1.0);
+    }
+
+    private static int hsvToRgb(double hue, double saturation, double value) {
         double c = value * saturation;
         double hPrime = hue / 60.0;
         double x = c * (1.0 - Math.abs(hPrime % 2 - 1.0));
@@ -53,7 +54,7 @@ public final class RainbowEffect extends AbstractEffect {
 
         double m = value - c;
 
-        return new RgbColor(
+        return PackedRgb.pack(
                 toByte(r1 + m),
                 toByte(g1 + m),
                 toByte(b1 + m)
@@ -1,7 +1,7 @@
 package org.senegas.ledstrip.domain.effect;
 
+import org.senegas.ledstrip.domain.color.PackedRgb;
 import org.senegas.ledstrip.domain.color.RgbColor;
-import org.senegas.ledstrip.domain.led.LedStrip;
 
 /**
  * Running lights effect with smooth sine wave transition.
@@ -26,9 +26,9 @@ import org.senegas.ledstrip.domain.led.LedStrip;
  * ```
  *
  * 3. **Animation:**
- *    - `phaseStep` increments each frame (0-255)
+ *    - The phase (0-255) is the number of steps elapsed at time t, modulo 256
  *    - This shifts the entire wave pattern along the strip
- *    - Creates smooth, continuous motion
+ *    - Creates smooth, continuous motion, at the same pace however often it is rendered
  *
  * ## Visual Examples:
  * ```
@@ -41,17 +41,28 @@ import org.senegas.ledstrip.domain.led.LedStrip;
  *
  * Where: ░ = mostly color2, ▒ = blend, ▓ = more color1, █ = fully color1
  */
-public final class RunningLightsEffect extends AbstractEffect {
-
-    private final RgbColor color1;
-    private final RgbColor color2;
+public final class RunningLightsEffect extends PixelShaderEffect implements PeriodicEffect {
+
+    // Quarter wave lookup table (0° to 90°)
+    // Values represent sine from 0.0 to 1.0, scaled to 0-127
+    private static final int[] SINE_TABLE = {
+            0,   2,   5,   8,  11,  14,  17,  20,  23,  26,  29,  32,  35,  38,  41,  44,
+            47,  49,  52,  55,  58,  61,  64,  66,  69,  72,  75,  77,  80,  83,  85,  88,
+            91,  93,  96,  98, 101, 103, 106, 108, 111, 113, 115, 118, 120, 122, 125, 127
+    };
+
+    private final int color1;
+    private final int color2;
     private final long stepDurationMs;
     private final boolean reverse;
     private final int waveSize;
 
-    private int phaseStep = 0;
-    private long lastStepTime = 0;
-    private int cycleCount = 0;
+    // Step shown on the strip, -1 before the first frame
+    private long renderedStep = -1;
+
+    // Per-frame values read by shade()
+    private int framePhase;
+    private int frameSineIncrement;
 
     /**
      * Creates a running lights effect with default wave size.
@@ -84,52 +95,42 @@ public final class RunningLightsEffect extends AbstractEffect {
             throw new IllegalArgumentException("Wave size must be at least 1");
         }
 
-        this.color1 = color1;
-        this.color2 = color2;
+        this.color1 = color1.toPackedRgb();
+        this.color2 = color2.toPackedRgb();
         this.stepDurationMs = stepDurationMs;
         this.reverse = reverse;
         this.waveSize = waveSize;
     }
 
     @Override
-    public boolean apply(LedStrip strip, long timeMillis) {
-        int stripLength = strip.getLength();
-        if (stripLength == 0) {
-            return false;
-        }
-
-        if (timeMillis - lastStepTime < stepDurationMs) {
+    protected boolean beginFrame(int stripLength, long timeNanos) {
+        long step = Math.floorDiv(timeNanos / NANOS_PER_MILLI, stepDurationMs);
+        if (step == renderedStep) {
             return false;
         }
 
-        lastStepTime = timeMillis;
+        renderedStep = step;
 
         // Calculate sine increment based on strip length and wave size
         // This determines how many complete sine waves fit on the strip
         int sineIncrement = (256 / stripLength) * waveSize;
-        sineIncrement = Math.max(sineIncrement, 1); // Ensure at least 1
+        frameSineIncrement = Math.max(sineIncrement, 1); // Ensure at least 1
+        framePhase = (int) Math.floorMod(step, 256L);
 
-        // Apply sine wave pattern across all LEDs
-        for (int i = 0; i < stripLength; i++) {
-            // Calculate sine wave value for this LED position
-            int sineInput = ((i + phaseStep) * sineIncrement) & 0xFF; // Keep in 0-255 range
-            int luminance = sine8(sineInput);
+        return true;
+    }
 
-            // Blend between two colors based on sine wave value
-            RgbColor color = color1.blend(color2, luminance / 255.0);
+    @Override
+    protected int shade(int position, int stripLength, long timeNanos) {
+        // Wave index of this pixel (with optional reverse direction)
+        int i = reverse ? position : (stripLength - 1 - position);
 
-            // Set pixel (with optional reverse direction)
-            int position = reverse ? i : (stripLength - 1 - i);
-            strip.setPixel(position, color);
-        }
+        // Calculate sine wave value for this LED position
+        int sineInput = ((i + framePhase) * frameSineIncrement) & 0xFF; // Keep in 0-255 range
+        int luminance = sine8(sineInput);
 
-        // Advance phase
-        phaseStep = (phaseStep + 1) % 256;
-        if (phaseStep == 0) {
-            cycleCount++;
-        }
-
-        return true;
+        // Blend between two colors based on sine wave value
+        return PackedRgb.blend8(color1, color2, luminance);
     }
 
     /**
@@ -145,17 +146,9 @@ public final class RunningLightsEffect extends AbstractEffect {
      * @param x Input value (0-255 represents 0-2π)
      * @return Sine value (0-255, where 128 is the midpoint/zero)
      */
-    private int sine8(int x) {
+    private static int sine8(int x) {
         x = x & 0xFF; // Ensure 0-255 range
 
-        // Quarter wave lookup table (0° to 90°)
-        // Values represent sine from 0.0 to 1.0, scaled to 0-127
-        final int[] SINE_TABLE = {
-                0,   2,   5,   8,  11,  14,  17,  20,  23,  26,  29,  32,  35,  38,  41,  44,
-                47,  49,  52,  55,  58,  61,  64,  66,  69,  72,  75,  77,  80,  83,  85,  88,
-                91,  93,  96,  98, 101, 103, 106, 108, 111, 113, 115, 118, 120, 122, 125, 127
-        };
-
         // Use symmetry to calculate full sine wave from quarter wave
         if (x < 64) {
             // First quarter (0° to 90°): rising from 0 to peak
@@ -177,11 +170,20 @@ public final class RunningLightsEffect extends AbstractEffect {
         }
     }
 
+    @Override
+    public long nextUpdateMillis(long timestampMillis) {
+        return (Math.floorDiv(timestampMillis, stepDurationMs) + 1) * stepDurationMs;
+    }
+
+    @Override
+    public long periodMillis(int ledCount) {
+        // The phase wraps after 256 steps
+        return 256 * stepDurationMs;
+    }
+
     @Override
     public void reset() {
-        phaseStep = 0;
-        lastStepTime = 0;
-        cycleCount = 0;
+        renderedStep = -1;
     }
 
     /**
@@ -189,15 +191,15 @@ public final class RunningLightsEffect extends AbstractEffect {
      * @return The cycle count
      */
     public int getCycleCount() {
-        return cycleCount;
+        return renderedStep < 0 ? 0 : (int) (renderedStep / 256);
     }
 
     /**
-     * Gets the current phase step (0-255).
+     * Gets the phase step (0-255) of the last rendered frame.
      * @return Current phase
      */
     public int getCurrentPhase() {
-        return phaseStep;
+        return framePhase;
     }
 
     /**
@@ -0,0 +1,115 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Splits the strip into segments, each running its own effect, like
+ * WS2812FX segments.
+ *
+ * Every segment effect renders straight into a {@link LedStrip#segment}
+ * view of the target strip, so one tick updates all segments in place and
+ * the engine publishes a single frame for the whole strip. The effect is due
+ * again as soon as any segment is. LEDs outside every segment are left as
+ * they are.
+ */
+public final class SegmentedEffect extends AbstractEffect {
+
+    /**
+     * @param reversed run the effect from the last LED of the range to the first
+     */
+    public record Segment(int offset, int length, boolean reversed, Effect effect) {
+        public Segment {
+            if (offset < 0 || length <= 0) {
+                throw new IllegalArgumentException("Segment needs a non-negative offset and a positive length");
+            }
+            Objects.requireNonNull(effect);
+        }
+
+        public Segment(int offset, int length, Effect effect) {
+            this(offset, length, false, effect);
+        }
+    }
+
+    private final Segment[] segments;
+
+    // Views over the strip last rendered to, rebuilt when it changes
+    private LedStrip viewedStrip;
+    private LedStrip[] views;
+
+    public SegmentedEffect(Segment... segments) {
+        this("Segments", List.of(segments));
+    }
+
+    public SegmentedEffect(String name, List<Segment> segments) {
+        super(name);
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("At least one segment is required");
+        }
+        this.segments = segments.toArray(new Segment[0]);
+    }
+
+    @Override
+    public boolean apply(LedStrip strip, long timestampMillis) {
+        LedStrip[] targets = views(strip);
+        boolean changed = false;
+        for (int s = 0; s < segments.length; s++) {
+            changed |= segments[s].effect().apply(targets[s], timestampMillis);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean applyNanos(LedStrip strip, long timestampNanos) {
+        LedStrip[] targets = views(strip);
+        boolean changed = false;
+        for (int s = 0; s < segments.length; s++) {
+            changed |= segments[s].effect().applyNanos(targets[s], timestampNanos);
+        }
+        return changed;
+    }
+
+    private LedStrip[] views(LedStrip strip) {
+        if (strip != viewedStrip) {
+            LedStrip[] created = new LedStrip[segments.length];
+            for (int s = 0; s < segments.length; s++) {
+                Segment segment = segments[s];
+                if (segment.offset() + segment.length() > strip.getLength()) {
+                    throw new IllegalArgumentException("Segment " + segment.offset() + "+" + segment.length()
+                            + " exceeds strip length " + strip.getLength());
+                }
+                created[s] = strip.segment(segment.offset(), segment.length(), segment.reversed());
+            }
+            views = created;
+            viewedStrip = strip;
+        }
+        return views;
+    }
+
+    @Override
+    public long nextUpdateNanos(long timestampNanos) {
+        long next = Long.MAX_VALUE;
+        for (Segment segment : segments) {
+            next = Math.min(next, segment.effect().nextUpdateNanos(timestampNanos));
+        }
+        return next;
+    }
+
+    @Override
+    public long nextUpdateMillis(long timestampMillis) {
+        long next = Long.MAX_VALUE;
+        for (Segment segment : segments) {
+            next = Math.min(next, segment.effect().nextUpdateMillis(timestampMillis));
+        }
+        return next;
+    }
+
+    @Override
+    public void reset() {
+        for (Segment segment : segments) {
+            segment.effect().reset();
+        }
+    }
+}
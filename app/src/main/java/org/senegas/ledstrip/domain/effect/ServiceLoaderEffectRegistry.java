@@ -0,0 +1,160 @@
+package org.senegas.ledstrip.domain.effect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Effect registry backed by {@link EffectFactory} services.
+ *
+ * Factories are discovered through {@link ServiceLoader} on first lookup
+ * and effects are only created when asked for, so the number of registered
+ * effects does not affect startup. {@link #effect} caches one instance per
+ * name, parameters and strip length: strips of different lengths never
+ * share an effect's state, and selecting the same effect again for a strip
+ * gets the same instance back. Strips of the same length that animate side
+ * by side need their own instances from {@link #newEffect}.
+ */
+public final class ServiceLoaderEffectRegistry implements EffectRegistry {
+    private static final Logger LOGGER = Logger.getLogger(ServiceLoaderEffectRegistry.class.getName());
+
+    private record EffectKey(String factory, EffectParameters parameters, int ledCount) {
+    }
+
+    private final Iterable<EffectFactory> source;
+    private final Map<EffectKey, AbstractEffect> effects = new ConcurrentHashMap<>();
+    // Keyed by lower-case name, in discovery order; null until first lookup
+    private volatile Map<String, EffectFactory> factories;
+
+    /**
+     * Discovers factories with the thread context class loader.
+     */
+    public ServiceLoaderEffectRegistry() {
+        this(ServiceLoader.load(EffectFactory.class));
+    }
+
+    public ServiceLoaderEffectRegistry(ClassLoader classLoader) {
+        this(ServiceLoader.load(EffectFactory.class, classLoader));
+    }
+
+    /**
+     * Uses the given factories instead of discovering them.
+     */
+    public ServiceLoaderEffectRegistry(Iterable<EffectFactory> factories) {
+        this.source = Objects.requireNonNull(factories);
+    }
+
+    private Map<String, EffectFactory> factories() {
+        Map<String, EffectFactory> discovered = factories;
+        if (discovered == null) {
+            synchronized (this) {
+                discovered = factories;
+                if (discovered == null) {
+                    discovered = discover();
+                    factories = discovered;
+                }
+            }
+        }
+        return discovered;
+    }
+
+    private Map<String, EffectFactory> discover() {
+        Map<String, EffectFactory> discovered = new LinkedHashMap<>();
+        var iterator = source.iterator();
+        while (true) {
+            EffectFactory factory;
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                factory = iterator.next();
+            } catch (ServiceConfigurationError e) {
+                // One broken provider must not hide the others
+                LOGGER.log(Level.WARNING, "Skipping effect factory", e);
+                continue;
+            }
+            String key = factory.getName().toLowerCase(Locale.ROOT);
+            if (discovered.putIfAbsent(key, factory) != null) {
+                LOGGER.log(Level.WARNING, "Ignoring {0}: effect {1} is already provided by {2}",
+                        new Object[]{factory.getClass().getName(), factory.getName(),
+                                discovered.get(key).getClass().getName()});
+            }
+        }
+        return Collections.unmodifiableMap(discovered);
+    }
+
+    /**
+     * @return names of the available effects, in discovery order
+     */
+    public List<String> effectNames() {
+        List<String> names = new ArrayList<>();
+        for (EffectFactory factory : factories().values()) {
+            names.add(factory.getName());
+        }
+        return names;
+    }
+
+    public Optional<EffectFactory> factory(String name) {
+        return Optional.ofNullable(factories().get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Returns the cached effect for this name, parameters and strip length,
+     * creating it on first use.
+     *
+     * @param name effect name, ignoring case
+     * @param ledCount length of the strip the effect runs on, 0 if unknown
+     * @throws IllegalArgumentException if no factory has that name or a parameter is invalid
+     */
+    public AbstractEffect effect(String name, EffectParameters parameters, int ledCount) {
+        EffectFactory factory = requireFactory(name);
+        EffectParameters completed = parameters.withDefaults(factory.getDefaultParameters());
+        return effects.computeIfAbsent(new EffectKey(factory.getName(), completed, ledCount),
+                key -> factory.create(completed, ledCount));
+    }
+
+    /**
+     * Creates an uncached effect instance.
+     *
+     * @throws IllegalArgumentException if no factory has that name or a parameter is invalid
+     */
+    public AbstractEffect newEffect(String name, EffectParameters parameters, int ledCount) {
+        EffectFactory factory = requireFactory(name);
+        return factory.create(parameters.withDefaults(factory.getDefaultParameters()), ledCount);
+    }
+
+    private EffectFactory requireFactory(String name) {
+        return factory(name).orElseThrow(() -> new IllegalArgumentException(
+                "Unknown effect " + name + ", expected one of " + String.join(", ", effectNames())));
+    }
+
+    /**
+     * Drops the cached effects; later lookups create new instances.
+     */
+    public void clearCache() {
+        effects.clear();
+    }
+
+    /**
+     * Creates every effect with default parameters. Prefer {@link #effectNames()}
+     * and {@link #effect} to only create the effects actually used.
+     */
+    @Override
+    public List<AbstractEffect> availableEffects() {
+        List<AbstractEffect> all = new ArrayList<>();
+        for (String name : effectNames()) {
+            all.add(effect(name, EffectParameters.NONE, 0));
+        }
+        return all;
+    }
+}
@@ -0,0 +1,51 @@
+package org.senegas.ledstrip.domain.led;
+
+/* Mutable [from, to) index range of pixels changed since the last published frame */
+final class DirtyRange {
+    private int from;
+    private int to;
+
+    DirtyRange(int length) {
+        markAll(length);
+    }
+
+    void mark(int index) {
+        if (index < from) {
+            from = index;
+        }
+        if (index >= to) {
+            to = index + 1;
+        }
+    }
+
+    void mark(int fromIndex, int toIndex) {
+        if (fromIndex < from) {
+            from = fromIndex;
+        }
+        if (toIndex > to) {
+            to = toIndex;
+        }
+    }
+
+    void markAll(int length) {
+        from = 0;
+        to = length;
+    }
+
+    void reset() {
+        from = Integer.MAX_VALUE;
+        to = 0;
+    }
+
+    boolean isEmpty() {
+        return from >= to;
+    }
+
+    int from() {
+        return isEmpty() ? 0 : from;
+    }
+
+    int to() {
+        return isEmpty() ? 0 : to;
+    }
+}
@@ -0,0 +1,58 @@
+package org.senegas.ledstrip.domain.led;
+
+/**
+ * Ring of reusable {@link LedStripState} frames for one strip length.
+ *
+ * A frame returns to the ring once every holder has released it. When all
+ * frames are still held (e.g. by slow adapters), {@link #acquire()} falls back
+ * to a fresh unpooled frame instead of blocking. Acquisition is meant to be
+ * done by a single producing thread; retain/release may happen anywhere.
+ */
+public final class FramePool {
+    public static final int DEFAULT_CAPACITY = 4;
+
+    private final int length;
+    private final LedStripState[] frames;
+    private int cursor;
+    private long misses;
+
+    public FramePool(int length) {
+        this(length, DEFAULT_CAPACITY);
+    }
+
+    public FramePool(int length, int capacity) {
+        if (length <= 0) throw new IllegalArgumentException("length must be >= 1");
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be >= 1");
+        this.length = length;
+        this.frames = new LedStripState[capacity];
+        for (int i = 0; i < capacity; i++) {
+            frames[i] = new LedStripState(new int[length], this);
+        }
+    }
+
+    /**
+     * @return a writable frame holding one reference, to be released by the caller
+     */
+    LedStripState acquire() {
+        for (int n = 0; n < frames.length; n++) {
+            LedStripState frame = frames[cursor];
+            cursor = (cursor + 1) % frames.length;
+            if (frame.tryAcquire()) {
+                return frame;
+            }
+        }
+        misses++;
+        return new LedStripState(new int[length], null);
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return number of times every pooled frame was still held and a new one was allocated
+     */
+    public long getMisses() {
+        return misses;
+    }
+}
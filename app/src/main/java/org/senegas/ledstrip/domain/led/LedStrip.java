@@ -2,21 +2,64 @@ package org.senegas.ledstrip.domain.led;
 
 import org.senegas.ledstrip.domain.color.RgbColor;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
 import java.util.List;
 import java.util.Objects;
 
+/**
+ * Logical LED strip backed by a packed framebuffer.
+ *
+ * Colors are stored as 0xRRGGBB ints and the on/off state as a bit mask, so
+ * bulk operations ({@link #fill}, {@link #clear}, {@link #snapshot}) are plain
+ * array passes. {@link #getLed(int)} hands out lightweight {@link Led} views
+ * over a single index, which keeps the {@code Led}/{@code Switchable}/
+ * {@code Colorable} API available without storing one object per pixel.
+ *
+ * The strip also tracks the range of pixels changed since the last frame it
+ * published, which travels with the frame as its dirty range.
+ *
+ * {@link #segment} returns a strip over a sub-range of this one, optionally
+ * reversed, sharing its framebuffer and dirty range: effects render into a
+ * segment like into any strip, and the changes show up in the parent's next
+ * frame without copying.
+ */
 public class LedStrip {
+    private static final int RGB_MASK = 0xFFFFFF;
+
+    private final int length;
+    // Color last assigned to each LED, kept while the LED is switched off
+    private final int[] rgb;
+    private final long[] onMask;
+    private final DirtyRange dirty;
     private final List<Led> leds;
+    // Buffer index of LED 0 and direction of increasing indices; segments share the buffers
+    private final int origin;
+    private final int step;
+    private final boolean root;
 
     // Private constructor; use builder / factory
     LedStrip(int length) {
         if (length <= 0) throw new IllegalArgumentException("length must be >= 1");
-        this.leds = new ArrayList<>(length);
-        for (int i = 0; i < length; i++) {
-            this.leds.add(new SimpleLed(i));
-        }
+        this.length = length;
+        this.rgb = new int[length];
+        this.onMask = new long[(length + 63) >>> 6];
+        this.dirty = new DirtyRange(length);
+        this.leds = new LedList();
+        this.origin = 0;
+        this.step = 1;
+        this.root = true;
+    }
+
+    private LedStrip(LedStrip parent, int offset, int length, boolean reversed) {
+        this.length = length;
+        this.rgb = parent.rgb;
+        this.onMask = parent.onMask;
+        this.dirty = parent.dirty;
+        this.leds = new LedList();
+        this.origin = parent.physical(reversed ? offset + length - 1 : offset);
+        this.step = reversed ? -parent.step : parent.step;
+        this.root = false;
     }
 
     public static LedStrip ofLength(int length) {
@@ -24,43 +67,278 @@ public class LedStrip {
     }
 
     public int getLength() {
-        return leds.size();
+        return length;
+    }
+
+    /**
+     * View of {@code length} LEDs starting at {@code offset}, sharing this
+     * strip's pixels. Index 0 of a reversed segment is its last LED here.
+     */
+    public LedStrip segment(int offset, int length, boolean reversed) {
+        Objects.checkFromIndexSize(offset, length, this.length);
+        if (length == 0) {
+            throw new IllegalArgumentException("length must be >= 1");
+        }
+        return new LedStrip(this, offset, length, reversed);
+    }
+
+    public LedStrip segment(int offset, int length) {
+        return segment(offset, length, false);
     }
 
     public Led getLed(int index) {
         checkIndex(index);
-        return leds.get(index);
+        return new LedView(this, index);
     }
 
     public List<Led> getLeds() {
-        return Collections.unmodifiableList(leds);
+        return leds;
     }
 
     public void fill(RgbColor color) {
-        Objects.requireNonNull(color);
-        for (Led led : leds) {
-            led.setColor(color);
-            led.turnOn();
-        }
+        fillRgb(Objects.requireNonNull(color).toPackedRgb());
+    }
+
+    /**
+     * Fills the strip with a packed 0xRRGGBB color and turns every LED on.
+     */
+    public void fillRgb(int color) {
+        fillAssigned(color & RGB_MASK);
+        turnOnAll();
     }
 
     public void clear() {
-        for (Led led : leds) {
-            led.turnOff();
-            led.setColor(RgbColor.OFF);
-        }
+        fillAssigned(0);
+        turnOffAll();
     }
 
     public void setPixel(int index, RgbColor color) {
+        setPixelRgb(index, Objects.requireNonNull(color).toPackedRgb());
+    }
+
+    /**
+     * Sets a packed 0xRRGGBB color and turns the LED on.
+     */
+    public void setPixelRgb(int index, int color) {
+        checkIndex(index);
+        int p = physical(index);
+        int value = color & RGB_MASK;
+        if (rgb[p] != value || !isOnPhysical(p)) {
+            rgb[p] = value;
+            onMask[p >>> 6] |= 1L << p;
+            dirty.mark(p);
+        }
+    }
+
+    /**
+     * Sets every LED from packed 0xRRGGBB colors and turns them all on.
+     * @param colors one color per LED
+     */
+    public void setPixelsRgb(int[] colors) {
+        if (colors.length != length) {
+            throw new IllegalArgumentException("colors length " + colors.length + " for strip length " + length);
+        }
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < length; i++) {
+            int p = origin + step * i;
+            int value = colors[i] & RGB_MASK;
+            if (rgb[p] != value) {
+                rgb[p] = value;
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        markChanged(first, last);
+        turnOnAll();
+    }
+
+    /**
+     * Bulk variant of {@link #setPixelsRgb(int[])} reading {@link #getLength()}
+     * packed colors from {@code source} starting at {@code index}, without
+     * moving its position. Lets a strip be loaded straight from a mapped file.
+     */
+    public void setPixelsRgb(IntBuffer source, int index) {
+        Objects.checkFromIndexSize(index, length, source.limit());
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < length; i++) {
+            int p = origin + step * i;
+            int value = source.get(index + i) & RGB_MASK;
+            if (rgb[p] != value) {
+                rgb[p] = value;
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        markChanged(first, last);
+        turnOnAll();
+    }
+
+    /**
+     * Packed 0xRRGGBB color currently emitted by the LED: 0 when it is off.
+     */
+    public int getPixelRgb(int index) {
+        checkIndex(index);
+        int p = physical(index);
+        return isOnPhysical(p) ? rgb[p] : 0;
+    }
+
+    public boolean isOn(int index) {
+        checkIndex(index);
+        return isOnPhysical(physical(index));
+    }
+
+    public void turnOn(int index) {
+        checkIndex(index);
+        int p = physical(index);
+        if (!isOnPhysical(p)) {
+            onMask[p >>> 6] |= 1L << p;
+            dirty.mark(p);
+        }
+    }
+
+    public void turnOff(int index) {
+        checkIndex(index);
+        int p = physical(index);
+        if (isOnPhysical(p)) {
+            onMask[p >>> 6] &= ~(1L << p);
+            dirty.mark(p);
+        }
+    }
+
+    public void turnOnAll() {
+        setMaskRange(true);
+    }
+
+    public void turnOffAll() {
+        setMaskRange(false);
+    }
+
+    /**
+     * Makes this strip an exact copy of another one of the same length,
+     * including the colors kept by LEDs that are switched off.
+     */
+    public void copyFrom(LedStrip other) {
+        if (other.length != length) {
+            throw new IllegalArgumentException("length " + other.length + " for strip length " + length);
+        }
+        if (!root || !other.root) {
+            for (int i = 0; i < length; i++) {
+                int q = other.physical(i);
+                setAssignedRgb(i, other.rgb[q]);
+                if (other.isOnPhysical(q)) {
+                    turnOn(i);
+                } else {
+                    turnOff(i);
+                }
+            }
+            return;
+        }
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < length; i++) {
+            if (rgb[i] != other.rgb[i]) {
+                rgb[i] = other.rgb[i];
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        if (first >= 0) {
+            dirty.mark(first, last + 1);
+        }
+        for (int w = 0; w < onMask.length; w++) {
+            setMaskWord(w, other.onMask[w]);
+        }
+    }
+
+    /* Color assigned to the LED regardless of its on/off state */
+    int getAssignedRgb(int index) {
+        checkIndex(index);
+        return rgb[physical(index)];
+    }
+
+    /* Assigns a color without touching the on/off state, as Colorable#setColor does */
+    void setAssignedRgb(int index, int color) {
         checkIndex(index);
-        Led led = leds.get(index);
-        led.setColor(Objects.requireNonNull(color));
-        led.turnOn();
+        int p = physical(index);
+        int value = color & RGB_MASK;
+        if (rgb[p] != value) {
+            rgb[p] = value;
+            dirty.mark(p);
+        }
+    }
+
+    private void fillAssigned(int value) {
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < length; i++) {
+            int p = origin + step * i;
+            if (rgb[p] != value) {
+                rgb[p] = value;
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        markChanged(first, last);
+    }
+
+    /* Marks LEDs first..last (inclusive, -1 if none) as changed, in buffer coordinates */
+    private void markChanged(int first, int last) {
+        if (first >= 0) {
+            int a = physical(first);
+            int b = physical(last);
+            dirty.mark(Math.min(a, b), Math.max(a, b) + 1);
+        }
+    }
+
+    /* Switches every LED of this strip on or off, a mask word at a time */
+    private void setMaskRange(boolean on) {
+        int from = Math.min(origin, physical(length - 1));
+        int to = from + length;
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        for (int w = firstWord; w <= lastWord; w++) {
+            long mask = -1L;
+            if (w == firstWord) {
+                mask &= -1L << from;
+            }
+            if (w == lastWord) {
+                mask &= -1L >>> (63 - ((to - 1) & 63));
+            }
+            setMaskWord(w, on ? onMask[w] | mask : onMask[w] & ~mask);
+        }
+    }
+
+    private void setMaskWord(int word, long bits) {
+        long changed = onMask[word] ^ bits;
+        if (changed != 0) {
+            onMask[word] = bits;
+            int base = word << 6;
+            dirty.mark(base + Long.numberOfTrailingZeros(changed),
+                    base + 64 - Long.numberOfLeadingZeros(changed));
+        }
+    }
+
+    private int physical(int index) {
+        return origin + step * index;
+    }
+
+    private boolean isOnPhysical(int p) {
+        return (onMask[p >>> 6] & (1L << p)) != 0;
     }
 
     private void checkIndex(int index) {
-        if (index < 0 || index >= leds.size()) {
-            throw new IndexOutOfBoundsException("index " + index + " for length " + leds.size());
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + " for length " + length);
         }
     }
 
@@ -69,11 +347,36 @@ public class LedStrip {
      * Immutable view object.
      */
     public LedStripState snapshot() {
-        RgbColor[] colors = new RgbColor[leds.size()];
-        for (int i = 0; i < leds.size(); i++) {
-            colors[i] = leds.get(i).getColor();
+        LedStripState state = new LedStripState(new int[length], null);
+        copyInto(state);
+        state.setDirtyRange(0, length);
+        return state;
+    }
+
+    /**
+     * Writes the emitted colors into a frame about to be published, tagging it
+     * with the pixels changed since the previous published frame.
+     */
+    void publishInto(LedStripState frame) {
+        copyInto(frame);
+        if (!root) {
+            // The shared dirty range belongs to the whole strip and is left for it to publish
+            frame.setDirtyRange(0, length);
+            return;
+        }
+        frame.setDirtyRange(dirty.from(), dirty.to());
+        dirty.reset();
+    }
+
+    private void copyInto(LedStripState frame) {
+        int[] colors = frame.buffer();
+        if (colors.length != length) {
+            throw new IllegalArgumentException("frame length " + colors.length + " for strip length " + length);
+        }
+        for (int i = 0; i < length; i++) {
+            int p = origin + step * i;
+            colors[i] = isOnPhysical(p) ? rgb[p] : 0;
         }
-        return new LedStripState(colors);
     }
 
     @Override
@@ -93,4 +396,17 @@ public class LedStrip {
         }
         return sb.toString();
     }
+
+    /* Read-only list of LED views, one created per access */
+    private final class LedList extends AbstractList<Led> {
+        @Override
+        public Led get(int index) {
+            return getLed(index);
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
 }
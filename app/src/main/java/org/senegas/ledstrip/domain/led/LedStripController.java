@@ -1,73 +1,313 @@
 package org.senegas.ledstrip.domain.led;
 
 import org.senegas.ledstrip.domain.color.RgbColor;
+import org.senegas.ledstrip.domain.effect.AbstractEffect;
 import org.senegas.ledstrip.domain.effect.Effect;
 import org.senegas.ledstrip.hardware.LedStripHardwareAdapter;
+import org.senegas.ledstrip.metrics.AdapterApplyEvent;
+import org.senegas.ledstrip.metrics.EffectRenderEvent;
+import org.senegas.ledstrip.metrics.Histogram;
+import org.senegas.ledstrip.metrics.MetricsRegistry;
+import org.senegas.ledstrip.metrics.SnapshotEvent;
 
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Owns a strip and publishes it to an adapter.
+ *
+ * Edits such as {@link #setPixel} or {@link #fill} are queued as commands on
+ * a lock-free queue, so callers like the Swing event thread never block. While
+ * a renderer such as an animation engine is attached, its render thread is the
+ * only one touching the strip: it applies the queued commands at the start of
+ * each frame, and edits made between two frames appear together in the next
+ * one. With no renderer attached, the calling thread applies and publishes
+ * them right away. The strip itself belongs to that thread; other threads
+ * read colors from the last published frame with {@link #getPublishedColor}.
+ */
 public class LedStripController {
+    private static final Logger LOGGER = Logger.getLogger(LedStripController.class.getName());
+
     private final LedStrip strip;
     private final LedStripHardwareAdapter adapter;
+    private final FramePool framePool;
+    // Colors of the last published frame, guarded by itself
+    private final int[] publishedRgb;
+    private final Histogram renderTimes;
+    private final Histogram snapshotTimes;
+    private final Histogram adapterTimes;
+
+    private final Queue<Consumer<LedStrip>> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Runnable> renderer = new AtomicReference<>();
+    // Held by the caller applying commands while no renderer is attached; others leave their commands to it
+    private final AtomicBoolean applyingDirectly = new AtomicBoolean();
 
     public LedStripController(LedStrip strip, LedStripHardwareAdapter adapter) {
+        this(strip, adapter, MetricsRegistry.global());
+    }
+
+    /**
+     * @param metrics registry receiving render, snapshot and adapter latencies
+     */
+    public LedStripController(LedStrip strip, LedStripHardwareAdapter adapter, MetricsRegistry metrics) {
         this.strip = Objects.requireNonNull(strip);
         this.adapter = Objects.requireNonNull(adapter);
+        this.framePool = new FramePool(strip.getLength());
+        this.publishedRgb = new int[strip.getLength()];
+        this.renderTimes = metrics.histogram("effect.render");
+        this.snapshotTimes = metrics.histogram("frame.snapshot");
+        this.adapterTimes = metrics.adapterLatency(adapter.getClass());
     }
 
     public void setPixel(int index, RgbColor color) {
-        strip.setPixel(index, color);
-        adapter.apply(strip.snapshot());
+        Objects.checkIndex(index, strip.getLength());
+        Objects.requireNonNull(color);
+        submit(s -> s.setPixel(index, color));
+    }
+
+    public void setPixelRgb(int index, int rgb) {
+        Objects.checkIndex(index, strip.getLength());
+        submit(s -> s.setPixelRgb(index, rgb));
     }
 
     public void togglePixel(int index) {
-        strip.getLed(index).toggle();
-        adapter.apply(strip.snapshot());
+        Objects.checkIndex(index, strip.getLength());
+        submit(s -> s.getLed(index).toggle());
     }
 
     public void fill(RgbColor color) {
-        strip.fill(color);
-        adapter.apply(strip.snapshot());
+        Objects.requireNonNull(color);
+        submit(s -> s.fill(color));
+    }
+
+    public void fillRgb(int rgb) {
+        submit(s -> s.fillRgb(rgb));
     }
 
     public void clear() {
-        strip.clear();
-        adapter.apply(strip.snapshot());
+        submit(LedStrip::clear);
     }
 
     public void turnOffPixel(int index) {
-        strip.getLed(index).turnOff();
-        adapter.apply(strip.snapshot());
+        Objects.checkIndex(index, strip.getLength());
+        submit(s -> s.turnOff(index));
     }
 
     public void turnOffAll() {
-        for (int i = 0; i < strip.getLength(); i++) {
-            strip.getLed(i).turnOff();
-        }
-        adapter.apply(strip.snapshot());
+        submit(LedStrip::turnOffAll);
     }
 
     public void turnOnPixel(int index) {
-        strip.getLed(index).turnOn();
-        adapter.apply(strip.snapshot());
+        Objects.checkIndex(index, strip.getLength());
+        submit(s -> s.turnOn(index));
     }
 
     public void turnOnAll() {
-        for (int i = 0; i < strip.getLength(); i++) {
-            strip.getLed(i).turnOn();
+        submit(LedStrip::turnOnAll);
+    }
+
+    /**
+     * Queues an edit of the strip, applied on the render thread before the
+     * next frame, or right away when no renderer is attached. Commands run in
+     * submission order; one that throws is logged and skipped.
+     */
+    public void submit(Consumer<LedStrip> command) {
+        commands.offer(Objects.requireNonNull(command));
+        Runnable wakeUp = renderer.get();
+        if (wakeUp != null) {
+            wakeUp.run();
+        } else {
+            applyDirectly();
+        }
+    }
+
+    private void applyDirectly() {
+        while (renderer.get() == null && !commands.isEmpty() && applyingDirectly.compareAndSet(false, true)) {
+            try {
+                if (renderer.get() == null && drainCommands()) {
+                    publish();
+                }
+            } finally {
+                applyingDirectly.set(false);
+            }
+        }
+    }
+
+    /**
+     * Makes the caller's thread the only writer of the strip, typically an
+     * animation engine from its start. The renderer must call
+     * {@link #drainCommands()} on its render thread before each frame.
+     *
+     * @param wakeUp run on the submitting thread after each queued command, so
+     *               the renderer can bring its next frame forward; must not block
+     * @throws IllegalStateException if another renderer is attached
+     */
+    public void attachRenderer(Runnable wakeUp) {
+        Objects.requireNonNull(wakeUp);
+        if (!renderer.compareAndSet(null, wakeUp) && renderer.get() != wakeUp) {
+            throw new IllegalStateException("Strip is already driven by another renderer");
+        }
+    }
+
+    /**
+     * Returns the strip to direct updates, applying any commands left in the
+     * queue. Call once the renderer has finished its last frame.
+     */
+    public void detachRenderer(Runnable wakeUp) {
+        if (renderer.compareAndSet(wakeUp, null)) {
+            applyDirectly();
+        }
+    }
+
+    /**
+     * Applies the queued commands to the strip without publishing.
+     * Only the attached renderer's thread may call this.
+     *
+     * @return true if any command ran
+     */
+    public boolean drainCommands() {
+        boolean applied = false;
+        Consumer<LedStrip> command;
+        while ((command = commands.poll()) != null) {
+            try {
+                command.accept(strip);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Strip command failed", e);
+            }
+            applied = true;
         }
-        adapter.apply(strip.snapshot());
+        return applied;
     }
 
+    public boolean hasPendingCommands() {
+        return !commands.isEmpty();
+    }
+
+    /**
+     * Applies queued commands, then the effect, and publishes if either changed the strip.
+     *
+     * @return true if the strip was published
+     */
     public boolean applyEffect(Effect effect, long timestampMillis) {
-        boolean changed = effect.apply(strip, timestampMillis);
+        boolean changed = drainCommands();
+        EffectRenderEvent event = new EffectRenderEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean rendered = effect.apply(strip, timestampMillis);
+        renderTimes.record(System.nanoTime() - start);
+        commit(event, effect, rendered);
+        changed |= rendered;
         if (changed) {
-            adapter.apply(strip.snapshot());
+            publish();
         }
         return changed;
     }
 
+    /**
+     * Same as {@link #applyEffect} with a nanosecond timestamp from a monotonic clock.
+     */
+    public boolean applyEffectNanos(Effect effect, long timestampNanos) {
+        boolean changed = drainCommands();
+        changed |= renderEffect(effect, timestampNanos);
+        if (changed) {
+            publish();
+        }
+        return changed;
+    }
+
+    /**
+     * Runs the effect on the strip without publishing, so several strips can be
+     * rendered in parallel and then published together with {@link #publish()}.
+     * Queued commands are not applied; see {@link #drainCommands()}.
+     * A strip must not be rendered and mutated from two threads at once.
+     *
+     * @return true if the effect changed the strip
+     */
+    public boolean renderEffect(Effect effect, long timestampNanos) {
+        EffectRenderEvent event = new EffectRenderEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean changed = effect.applyNanos(strip, timestampNanos);
+        renderTimes.record(System.nanoTime() - start);
+        commit(event, effect, changed);
+        return changed;
+    }
+
+    private void commit(EffectRenderEvent event, Effect effect, boolean changed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.effect = AbstractEffect.nameOf(effect);
+            event.ledCount = strip.getLength();
+            event.changed = changed;
+            event.commit();
+        }
+    }
+
+    public int getLength() {
+        return strip.getLength();
+    }
+
+    /**
+     * Copy of the live strip. Only the thread owning the strip, the attached
+     * renderer's or the one applying edits directly, may call this; other
+     * threads use {@link #getPublishedColor}.
+     */
     public LedStripState getSnapshot() {
         return strip.snapshot();
     }
+
+    /**
+     * Color of an LED in the last frame sent to the adapter; safe from any thread.
+     */
+    public RgbColor getPublishedColor(int index) {
+        Objects.checkIndex(index, publishedRgb.length);
+        synchronized (publishedRgb) {
+            return RgbColor.fromPackedRgb(publishedRgb[index]);
+        }
+    }
+
+    /**
+     * Publishes the strip to the adapter through a pooled frame tagged with its dirty range.
+     */
+    public void publish() {
+        LedStripState frame = framePool.acquire();
+        try {
+            SnapshotEvent snapshotEvent = new SnapshotEvent();
+            snapshotEvent.begin();
+            long start = System.nanoTime();
+            strip.publishInto(frame);
+            synchronized (publishedRgb) {
+                System.arraycopy(frame.buffer(), frame.getDirtyFrom(), publishedRgb, frame.getDirtyFrom(),
+                        frame.getDirtyTo() - frame.getDirtyFrom());
+            }
+            long published = System.nanoTime();
+            snapshotTimes.record(published - start);
+            snapshotEvent.end();
+            if (snapshotEvent.shouldCommit()) {
+                snapshotEvent.ledCount = frame.getLength();
+                snapshotEvent.changedLeds = frame.getDirtyTo() - frame.getDirtyFrom();
+                snapshotEvent.commit();
+            }
+
+            AdapterApplyEvent applyEvent = new AdapterApplyEvent();
+            applyEvent.begin();
+            adapter.applyDelta(frame);
+            adapterTimes.record(System.nanoTime() - published);
+            applyEvent.end();
+            if (applyEvent.shouldCommit()) {
+                applyEvent.adapter = adapter.getClass();
+                applyEvent.delta = true;
+                applyEvent.ledCount = frame.getLength();
+                applyEvent.commit();
+            }
+        } finally {
+            frame.release();
+        }
+    }
 }
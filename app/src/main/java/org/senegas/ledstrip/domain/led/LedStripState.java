@@ -2,30 +2,152 @@ package org.senegas.ledstrip.domain.led;
 
 import org.senegas.ledstrip.domain.color.RgbColor;
 
-import java.util.Arrays;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Frame of packed 0xRRGGBB colors handed to adapters.
+ *
+ * Frames published by {@link LedStripController} come from a {@link FramePool}
+ * and are read-only once published. They are only guaranteed valid for the
+ * duration of {@code LedStripHardwareAdapter.apply}; an adapter that keeps a
+ * frame must {@link #retain()} it and {@link #release()} it when done.
+ * Frames created with the public constructor or {@link #ofPackedRgb} are not
+ * pooled, and retain/release are no-ops on them.
+ *
+ * Each frame carries the {@code [dirtyFrom, dirtyTo)} range of pixels that
+ * differ from the frame previously published for the same strip, so adapters
+ * can repaint or transmit only that range. Unpooled frames are fully dirty.
+ */
 public final class LedStripState {
-    private final RgbColor[] colors;
+    private final int[] rgb;
+    private final FramePool pool;
+    private final AtomicInteger refCount = new AtomicInteger();
+    private int dirtyFrom;
+    private int dirtyTo;
 
     public LedStripState(RgbColor[] colors) {
-        this.colors = Arrays.copyOf(colors, colors.length);
+        this.rgb = new int[colors.length];
+        this.pool = null;
+        for (int i = 0; i < colors.length; i++) {
+            this.rgb[i] = colors[i].toPackedRgb();
+        }
+        this.dirtyTo = colors.length;
+    }
+
+    /* Takes ownership of the packed 0xRRGGBB array, no copy */
+    LedStripState(int[] rgb, FramePool pool) {
+        this.rgb = rgb;
+        this.pool = pool;
+        this.dirtyTo = rgb.length;
+    }
+
+    /**
+     * Creates an unpooled frame holding a copy of packed 0xRRGGBB colors.
+     */
+    public static LedStripState ofPackedRgb(int[] rgb) {
+        return new LedStripState(rgb.clone(), null);
     }
 
     public int getLength() {
-        return colors.length;
+        return rgb.length;
     }
 
     public RgbColor getColorAt(int index) {
-        if (index < 0 || index >= colors.length) throw new IndexOutOfBoundsException();
-        return colors[index];
+        return RgbColor.fromPackedRgb(rgbAt(index));
+    }
+
+    /**
+     * @return packed 0xRRGGBB color of the LED at index
+     */
+    public int rgbAt(int index) {
+        if (index < 0 || index >= rgb.length) throw new IndexOutOfBoundsException();
+        return rgb[index];
+    }
+
+    /**
+     * Copies all packed colors into {@code dest}, which must hold at least {@link #getLength()} ints.
+     */
+    public void copyTo(int[] dest) {
+        copyTo(dest, 0);
+    }
+
+    public void copyTo(int[] dest, int destOffset) {
+        System.arraycopy(rgb, 0, dest, destOffset, rgb.length);
+    }
+
+    /**
+     * Writes the colors into {@code dest} at {@code index} without moving its position.
+     */
+    public void copyTo(IntBuffer dest, int index) {
+        dest.put(index, rgb);
+    }
+
+    /**
+     * @return first index changed since the previous frame
+     */
+    public int getDirtyFrom() {
+        return dirtyFrom;
+    }
+
+    /**
+     * @return index after the last one changed since the previous frame
+     */
+    public int getDirtyTo() {
+        return dirtyTo;
+    }
+
+    /**
+     * @return true if any pixel differs from the previous frame
+     */
+    public boolean hasChanges() {
+        return dirtyFrom < dirtyTo;
     }
 
     public RgbColor[] toArray() {
-        return Arrays.copyOf(colors, colors.length);
+        RgbColor[] colors = new RgbColor[rgb.length];
+        for (int i = 0; i < rgb.length; i++) {
+            colors[i] = RgbColor.fromPackedRgb(rgb[i]);
+        }
+        return colors;
+    }
+
+    /**
+     * Keeps this frame from being recycled until a matching {@link #release()}.
+     * @return this frame
+     */
+    public LedStripState retain() {
+        if (pool != null && refCount.getAndIncrement() <= 0) {
+            refCount.getAndDecrement();
+            throw new IllegalStateException("Frame was already released");
+        }
+        return this;
+    }
+
+    public void release() {
+        if (pool != null && refCount.decrementAndGet() < 0) {
+            refCount.incrementAndGet();
+            throw new IllegalStateException("Frame released more times than retained");
+        }
+    }
+
+    /* Claims a free pooled frame for writing */
+    boolean tryAcquire() {
+        return refCount.compareAndSet(0, 1);
+    }
+
+    void setDirtyRange(int from, int to) {
+        this.dirtyFrom = from;
+        this.dirtyTo = to;
+    }
+
+    /* Backing array, only written by the strip before the frame is published */
+    int[] buffer() {
+        return rgb;
     }
 
     @Override
     public String toString() {
-        return "LedStripState[length=" + colors.length + "]";
+        return "LedStripState[length=" + rgb.length + "]";
     }
 }
@@ -4,15 +4,14 @@ import org.senegas.ledstrip.domain.color.RgbColor;
 
 import java.util.Objects;
 
-public final class SimpleLed  implements Led {
+/* Flyweight Led over one index of a packed LedStrip; holds no pixel state itself */
+final class LedView implements Led {
+    private final LedStrip strip;
     private final int index;
-    private boolean on;
-    private RgbColor color;
 
-    SimpleLed(int index) {
+    LedView(LedStrip strip, int index) {
+        this.strip = strip;
         this.index = index;
-        this.on = false;
-        this.color = RgbColor.OFF;
     }
 
     @Override
@@ -22,29 +21,26 @@ public final class SimpleLed  implements Led {
 
     @Override
     public void turnOn() {
-        this.on = true;
-        if (this.color == null) {
-            this.color = RgbColor.OFF;
-        }
+        strip.turnOn(index);
     }
 
     @Override
     public void turnOff() {
-        this.on = false;
+        strip.turnOff(index);
     }
 
     @Override
     public boolean isOn() {
-        return on;
+        return strip.isOn(index);
     }
 
     @Override
     public void setColor(RgbColor color) {
-        this.color = Objects.requireNonNull(color);
+        strip.setAssignedRgb(index, Objects.requireNonNull(color).toPackedRgb());
     }
 
     @Override
     public RgbColor getColor() {
-        return on ? color : RgbColor.OFF;
+        return RgbColor.fromPackedRgb(strip.getPixelRgb(index));
     }
 }
@@ -0,0 +1,64 @@
+package org.senegas.ledstrip.hardware;
+
+import java.nio.charset.StandardCharsets;
+
+/* Direct-mapped cache of pre-encoded ANSI true-color cells, keyed by packed RGB */
+final class AnsiCellCache {
+    private static final byte[] CELL_SUFFIX = "m  ".getBytes(StandardCharsets.US_ASCII);
+    private static final int CACHE_BITS = 10;
+
+    private final int[] keys = new int[1 << CACHE_BITS];
+    private final byte[][] cells = new byte[1 << CACHE_BITS][];
+
+    /* Longest encoding: ESC[48;2;255;255;255m plus two spaces */
+    static final int MAX_CELL_BYTES = 21;
+
+    /**
+     * @return ESC[48;2;R;G;Bm followed by two spaces, for a packed 0xRRGGBB color
+     */
+    byte[] cell(int rgb) {
+        int slot = (rgb * 0x9E3779B1) >>> (32 - CACHE_BITS);
+        byte[] cached = cells[slot];
+        if (cached != null && keys[slot] == rgb) {
+            return cached;
+        }
+        byte[] encoded = encode(rgb);
+        keys[slot] = rgb;
+        cells[slot] = encoded;
+        return encoded;
+    }
+
+    private static byte[] encode(int rgb) {
+        byte[] buffer = new byte[MAX_CELL_BYTES];
+        int n = 0;
+        buffer[n++] = 0x1B;
+        buffer[n++] = '[';
+        buffer[n++] = '4';
+        buffer[n++] = '8';
+        buffer[n++] = ';';
+        buffer[n++] = '2';
+        buffer[n++] = ';';
+        n = appendDecimal(buffer, n, (rgb >> 16) & 0xFF);
+        buffer[n++] = ';';
+        n = appendDecimal(buffer, n, (rgb >> 8) & 0xFF);
+        buffer[n++] = ';';
+        n = appendDecimal(buffer, n, rgb & 0xFF);
+        System.arraycopy(CELL_SUFFIX, 0, buffer, n, CELL_SUFFIX.length);
+        n += CELL_SUFFIX.length;
+
+        byte[] cell = new byte[n];
+        System.arraycopy(buffer, 0, cell, 0, n);
+        return cell;
+    }
+
+    private static int appendDecimal(byte[] buffer, int offset, int value) {
+        if (value >= 100) {
+            buffer[offset++] = (byte) ('0' + value / 100);
+        }
+        if (value >= 10) {
+            buffer[offset++] = (byte) ('0' + (value / 10) % 10);
+        }
+        buffer[offset++] = (byte) ('0' + value % 10);
+        return offset;
+    }
+}
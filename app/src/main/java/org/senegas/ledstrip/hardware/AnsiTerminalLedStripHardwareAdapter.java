@@ -0,0 +1,218 @@
+package org.senegas.ledstrip.hardware;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Console output that redraws the strip in place instead of printing a new
+ * block per frame.
+ *
+ * The strip is drawn once as a grid of colored cells; afterwards only cells
+ * whose color changed are rewritten, using cursor movement escapes. Cell
+ * encodings are cached per color, each update is assembled in one reusable
+ * buffer and written through a single channel call. With a refresh rate set,
+ * frames are only recorded on apply and a background thread redraws at that
+ * rate, independent of the animation frame rate.
+ */
+public class AnsiTerminalLedStripHardwareAdapter implements LedStripHardwareAdapter, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(AnsiTerminalLedStripHardwareAdapter.class.getName());
+
+    private static final byte ESC = 0x1B;
+    private static final int MAX_MOVE_BYTES = 16;
+
+    private final int ledCount;
+    private final int columns;
+    private final int rows;
+    private final WritableByteChannel channel;
+    private final AnsiCellCache cellCache = new AnsiCellCache();
+    private final ByteBuffer out;
+    private final ScheduledExecutorService refresher;
+
+    // Latest applied colors, guarded by this
+    private final int[] latest;
+    private boolean latestPending = false;
+
+    // Guarded by drawLock, held while writing so apply() never waits on the terminal
+    private final Object drawLock = new Object();
+    private final int[] drawing;
+    private final int[] shown;
+    // Also read by applyDelta() without the lock
+    private volatile boolean drawn = false;
+
+    /**
+     * Draws to standard output on every frame, all LEDs on one row.
+     */
+    public AnsiTerminalLedStripHardwareAdapter(int ledCount) {
+        this(ledCount, ledCount, 0, Channels.newChannel(new FileOutputStream(FileDescriptor.out)));
+    }
+
+    /**
+     * @param columns LEDs per terminal row
+     * @param refreshHz maximum terminal redraws per second, 0 to redraw on every apply
+     * @param channel where escape sequences are written
+     */
+    public AnsiTerminalLedStripHardwareAdapter(int ledCount, int columns, int refreshHz, WritableByteChannel channel) {
+        if (ledCount <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("LED count and columns must be positive");
+        }
+        if (refreshHz < 0) {
+            throw new IllegalArgumentException("Refresh rate cannot be negative");
+        }
+        this.ledCount = ledCount;
+        this.columns = columns;
+        this.rows = (ledCount + columns - 1) / columns;
+        this.channel = Objects.requireNonNull(channel);
+        this.latest = new int[ledCount];
+        this.drawing = new int[ledCount];
+        this.shown = new int[ledCount];
+        // Worst case: every other cell changes, each run needing its own cursor moves
+        this.out = ByteBuffer.allocate(ledCount * (AnsiCellCache.MAX_CELL_BYTES + 2 * MAX_MOVE_BYTES)
+                + rows * 8 + 64);
+
+        if (refreshHz > 0) {
+            this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ledstrip-terminal-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            long periodNanos = TimeUnit.SECONDS.toNanos(1) / refreshHz;
+            refresher.scheduleAtFixedRate(this::scheduledRefresh, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        } else {
+            this.refresher = null;
+        }
+    }
+
+    @Override
+    public void apply(LedStripState state) {
+        if (state.getLength() != ledCount) {
+            throw new IllegalArgumentException("State length " + state.getLength()
+                    + " does not match " + ledCount + " LEDs");
+        }
+        synchronized (this) {
+            state.copyTo(latest);
+            latestPending = true;
+        }
+        if (refresher == null) {
+            refresh();
+        }
+    }
+
+    @Override
+    public void applyDelta(LedStripState state) {
+        // Cells are diffed against what is on screen, so unchanged frames cost nothing
+        if (state.hasChanges() || !drawn) {
+            apply(state);
+        }
+    }
+
+    /* An exception escaping a fixed-rate task would silently cancel all later redraws */
+    private void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (UncheckedIOException e) {
+            LOGGER.log(Level.WARNING, "Terminal redraw failed", e);
+        }
+    }
+
+    private void refresh() {
+        synchronized (drawLock) {
+            synchronized (this) {
+                if (!latestPending) {
+                    return;
+                }
+                System.arraycopy(latest, 0, drawing, 0, ledCount);
+                latestPending = false;
+            }
+
+            out.clear();
+            if (drawn) {
+                encodeChangedCells();
+            } else {
+                encodeAllCells();
+                drawn = true;
+            }
+            System.arraycopy(drawing, 0, shown, 0, ledCount);
+
+            out.flip();
+            try {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write to terminal", e);
+            }
+        }
+    }
+
+    /* First frame: draw the whole grid, leaving the cursor on the line below it */
+    private void encodeAllCells() {
+        for (int i = 0; i < ledCount; i++) {
+            out.put(cellCache.cell(drawing[i]));
+            if ((i + 1) % columns == 0 || i == ledCount - 1) {
+                putReset();
+                out.put((byte) '\n');
+            }
+        }
+    }
+
+    /* Later frames: jump to each run of changed cells and rewrite only those */
+    private void encodeChangedCells() {
+        int i = 0;
+        while (i < ledCount) {
+            if (drawing[i] == shown[i]) {
+                i++;
+                continue;
+            }
+            int row = i / columns;
+            int rowsUp = rows - row;
+            putCsi(rowsUp, 'A');
+            putCsi((i % columns) * 2 + 1, 'G');
+
+            int rowEnd = Math.min(ledCount, (row + 1) * columns);
+            while (i < rowEnd && drawing[i] != shown[i]) {
+                out.put(cellCache.cell(drawing[i]));
+                i++;
+            }
+            putReset();
+            putCsi(rowsUp, 'B');
+            out.put((byte) '\r');
+        }
+    }
+
+    private void putCsi(int n, char command) {
+        out.put(ESC).put((byte) '[');
+        putDecimal(n);
+        out.put((byte) command);
+    }
+
+    private void putDecimal(int value) {
+        if (value >= 10) {
+            putDecimal(value / 10);
+        }
+        out.put((byte) ('0' + value % 10));
+    }
+
+    private void putReset() {
+        out.put(ESC).put((byte) '[').put((byte) '0').put((byte) 'm');
+    }
+
+    @Override
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+}
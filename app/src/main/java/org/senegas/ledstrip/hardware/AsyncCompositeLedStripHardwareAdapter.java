@@ -0,0 +1,128 @@
+package org.senegas.ledstrip.hardware;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+import org.senegas.ledstrip.metrics.AdapterApplyEvent;
+import org.senegas.ledstrip.metrics.Histogram;
+import org.senegas.ledstrip.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Composite that fans frames out to its children asynchronously.
+ *
+ * Each child gets its own virtual thread fed by a latest-frame-wins
+ * {@link FrameMailbox}, so {@link #apply} returns as soon as the frame is
+ * handed over and a slow child (e.g. the console) can never stall the render
+ * loop or its siblings; it simply skips the frames it was too slow for,
+ * which are counted per child.
+ */
+public class AsyncCompositeLedStripHardwareAdapter implements LedStripHardwareAdapter, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(AsyncCompositeLedStripHardwareAdapter.class.getName());
+
+    private final List<ChildWorker> workers = new ArrayList<>();
+
+    public AsyncCompositeLedStripHardwareAdapter(LedStripHardwareAdapter... adapters) {
+        for (LedStripHardwareAdapter adapter : adapters) {
+            if (adapter != null) {
+                ChildWorker worker = new ChildWorker(adapter);
+                workers.add(worker);
+                worker.thread.start();
+            }
+        }
+    }
+
+    @Override
+    public void apply(LedStripState state) {
+        for (ChildWorker worker : workers) {
+            worker.mailbox.offer(state, true);
+        }
+    }
+
+    @Override
+    public void applyDelta(LedStripState state) {
+        for (ChildWorker worker : workers) {
+            worker.mailbox.offer(state, false);
+        }
+    }
+
+    /**
+     * @return frames the child skipped because a newer one arrived before it was done
+     */
+    public long getDroppedFrames(LedStripHardwareAdapter adapter) {
+        for (ChildWorker worker : workers) {
+            if (worker.adapter == adapter) {
+                return worker.mailbox.getDroppedFrames();
+            }
+        }
+        throw new IllegalArgumentException("Unknown adapter");
+    }
+
+    public long getDroppedFrames() {
+        long total = 0;
+        for (ChildWorker worker : workers) {
+            total += worker.mailbox.getDroppedFrames();
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        for (ChildWorker worker : workers) {
+            worker.mailbox.close();
+        }
+        for (ChildWorker worker : workers) {
+            try {
+                worker.thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static final class ChildWorker implements Runnable {
+        private final LedStripHardwareAdapter adapter;
+        private final FrameMailbox mailbox = new FrameMailbox();
+        private final Histogram latency;
+        private final Thread thread;
+
+        private ChildWorker(LedStripHardwareAdapter adapter) {
+            this.adapter = adapter;
+            this.latency = MetricsRegistry.global().adapterLatency(adapter.getClass());
+            this.thread = Thread.ofVirtual()
+                    .name("ledstrip-adapter-" + adapter.getClass().getSimpleName())
+                    .unstarted(this);
+        }
+
+        @Override
+        public void run() {
+            try {
+                LedStripState state;
+                while ((state = mailbox.take()) != null) {
+                    AdapterApplyEvent event = new AdapterApplyEvent();
+                    event.begin();
+                    long start = System.nanoTime();
+                    boolean full = mailbox.tookFullFrame();
+                    try {
+                        if (full) {
+                            adapter.apply(state);
+                        } else {
+                            adapter.applyDelta(state);
+                        }
+                        latency.record(System.nanoTime() - start);
+                        CompositeLedStripHardwareAdapter.commit(event, adapter, state, !full);
+                    } catch (RuntimeException e) {
+                        LOGGER.log(Level.WARNING, "Adapter " + adapter.getClass().getSimpleName() + " failed", e);
+                    } finally {
+                        state.release();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
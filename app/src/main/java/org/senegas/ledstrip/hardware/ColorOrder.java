@@ -0,0 +1,25 @@
+package org.senegas.ledstrip.hardware;
+
+/**
+ * Order in which a controller expects the three color bytes of a pixel on
+ * the wire. Many LED chips (e.g. WS2812) are wired GRB.
+ */
+public enum ColorOrder {
+    RGB(16, 8, 0),
+    RBG(16, 0, 8),
+    GRB(8, 16, 0),
+    GBR(8, 0, 16),
+    BRG(0, 16, 8),
+    BGR(0, 8, 16);
+
+    // Shifts extracting the first, second and third wire byte from a packed RGB int
+    final int firstShift;
+    final int secondShift;
+    final int thirdShift;
+
+    ColorOrder(int firstShift, int secondShift, int thirdShift) {
+        this.firstShift = firstShift;
+        this.secondShift = secondShift;
+        this.thirdShift = thirdShift;
+    }
+}
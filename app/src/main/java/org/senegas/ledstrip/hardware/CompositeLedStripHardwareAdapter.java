@@ -1,9 +1,12 @@
 package org.senegas.ledstrip.hardware;
 
 import org.senegas.ledstrip.domain.led.LedStripState;
+import org.senegas.ledstrip.metrics.AdapterApplyEvent;
+import org.senegas.ledstrip.metrics.MetricsRegistry;
 
 public class CompositeLedStripHardwareAdapter  implements LedStripHardwareAdapter {
     private final java.util.List<LedStripHardwareAdapter> adapters;
+    private final MetricsRegistry metrics = MetricsRegistry.global();
 
     public CompositeLedStripHardwareAdapter(LedStripHardwareAdapter... adapters) {
         this.adapters = new java.util.ArrayList<>();
@@ -27,7 +30,34 @@ public class CompositeLedStripHardwareAdapter  implements LedStripHardwareAdapte
     @Override
     public void apply(LedStripState state) {
         for (LedStripHardwareAdapter adapter : adapters) {
+            AdapterApplyEvent event = new AdapterApplyEvent();
+            event.begin();
+            long start = System.nanoTime();
             adapter.apply(state);
+            metrics.adapterLatency(adapter.getClass()).record(System.nanoTime() - start);
+            commit(event, adapter, state, false);
+        }
+    }
+
+    @Override
+    public void applyDelta(LedStripState state) {
+        for (LedStripHardwareAdapter adapter : adapters) {
+            AdapterApplyEvent event = new AdapterApplyEvent();
+            event.begin();
+            long start = System.nanoTime();
+            adapter.applyDelta(state);
+            metrics.adapterLatency(adapter.getClass()).record(System.nanoTime() - start);
+            commit(event, adapter, state, true);
+        }
+    }
+
+    static void commit(AdapterApplyEvent event, LedStripHardwareAdapter adapter, LedStripState state, boolean delta) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.adapter = adapter.getClass();
+            event.delta = delta;
+            event.ledCount = state.getLength();
+            event.commit();
         }
     }
 }
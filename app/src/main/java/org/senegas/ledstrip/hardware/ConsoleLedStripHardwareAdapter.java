@@ -1,6 +1,6 @@
 package org.senegas.ledstrip.hardware;
 
-import org.senegas.ledstrip.domain.color.RgbColor;
+import org.senegas.ledstrip.domain.color.PackedRgb;
 import org.senegas.ledstrip.domain.led.LedStripState;
 
 public class ConsoleLedStripHardwareAdapter implements LedStripHardwareAdapter {
@@ -14,14 +14,22 @@ public class ConsoleLedStripHardwareAdapter implements LedStripHardwareAdapter {
         System.out.println(ansi(state) );
     }
 
+    @Override
+    public void applyDelta(LedStripState state) {
+        // A console line cannot be patched in place, so only skip unchanged frames
+        if (state.hasChanges()) {
+            apply(state);
+        }
+    }
+
     String ansi(LedStripState state) {
         StringBuilder sb = new StringBuilder();
 
         for (int i = 0; i < state.getLength(); i++) {
-            RgbColor c = state.getColorAt(i);
+            int rgb = state.rgbAt(i);
             sb.append(String.format(
                     "\u001B[48;2;%d;%d;%dm  \u001B[0m",
-                    c.getRed(), c.getGreen(), c.getBlue()
+                    PackedRgb.red(rgb), PackedRgb.green(rgb), PackedRgb.blue(rgb)
             ));
         }
 
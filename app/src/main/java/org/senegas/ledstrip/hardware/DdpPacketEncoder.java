@@ -0,0 +1,69 @@
+package org.senegas.ledstrip.hardware;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Distributed Display Protocol: a 10-byte header followed by up to 480 RGB
+ * pixels. Each packet carries its byte offset into the display, and the
+ * receiver latches the frame when it sees the push flag.
+ */
+final class DdpPacketEncoder implements PixelPacketEncoder {
+
+    static final int HEADER_LENGTH = 10;
+    static final int MAX_DATA_LENGTH = 1440;
+
+    private static final byte VERSION_1 = 0x40;
+    private static final byte PUSH = 0x01;
+    private static final byte TYPE_RGB_8BIT = 0x0B;
+    private static final byte DISPLAY_ID = 0x01;
+    private static final int PIXELS_PER_PACKET = MAX_DATA_LENGTH / 3;
+
+    private final int ledCount;
+    private final ByteBuffer[] packets;
+
+    DdpPacketEncoder(int ledCount) {
+        this.ledCount = ledCount;
+        this.packets = new ByteBuffer[(ledCount + PIXELS_PER_PACKET - 1) / PIXELS_PER_PACKET];
+        for (int p = 0; p < packets.length; p++) {
+            int dataLength = 3 * (Math.min(ledCount, (p + 1) * PIXELS_PER_PACKET) - p * PIXELS_PER_PACKET);
+            ByteBuffer packet = ByteBuffer.allocateDirect(HEADER_LENGTH + dataLength);
+            packet.put(2, TYPE_RGB_8BIT)
+                    .put(3, DISPLAY_ID)
+                    .putInt(4, 3 * p * PIXELS_PER_PACKET)
+                    .putShort(8, (short) dataLength);
+            packets[p] = packet;
+        }
+    }
+
+    @Override
+    public int pixelsPerPacket() {
+        return PIXELS_PER_PACKET;
+    }
+
+    @Override
+    public int packetCount() {
+        return packets.length;
+    }
+
+    @Override
+    public ByteBuffer encode(int packet, LedStripState state, int sequence, boolean last) {
+        ByteBuffer buffer = packets[packet];
+        buffer.put(0, last ? (byte) (VERSION_1 | PUSH) : VERSION_1);
+        // Sequence numbers run 1-15; 0 tells the receiver not to check them
+        buffer.put(1, (byte) (sequence % 15 + 1));
+
+        int from = packet * PIXELS_PER_PACKET;
+        int to = Math.min(ledCount, from + PIXELS_PER_PACKET);
+        int offset = HEADER_LENGTH;
+        for (int i = from; i < to; i++) {
+            int rgb = state.rgbAt(i);
+            buffer.put(offset, (byte) (rgb >>> 16))
+                    .put(offset + 1, (byte) (rgb >>> 8))
+                    .put(offset + 2, (byte) rgb);
+            offset += 3;
+        }
+        return buffer.clear();
+    }
+}
@@ -0,0 +1,109 @@
+package org.senegas.ledstrip.hardware;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Streaming ACN (E1.31) data packets: one DMX universe of up to 170 RGB
+ * pixels per packet, universes numbered consecutively from the first one.
+ * Headers are written once; only the sequence number and slot data change
+ * between frames.
+ */
+final class E131PacketEncoder implements PixelPacketEncoder {
+
+    static final int HEADER_LENGTH = 126;
+    static final int PIXELS_PER_UNIVERSE = 170;
+
+    private static final byte[] ACN_PACKET_IDENTIFIER =
+            "ASC-E1.17\0\0\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int VECTOR_ROOT_E131_DATA = 0x04;
+    private static final int VECTOR_E131_DATA_PACKET = 0x02;
+    private static final byte VECTOR_DMP_SET_PROPERTY = 0x02;
+    private static final int SOURCE_NAME_LENGTH = 64;
+    private static final byte DEFAULT_PRIORITY = 100;
+    private static final int SEQUENCE_OFFSET = 111;
+
+    private final int ledCount;
+    private final ByteBuffer[] packets;
+
+    E131PacketEncoder(int ledCount, int firstUniverse, String sourceName) {
+        if (firstUniverse < 1 || firstUniverse > 63999) {
+            throw new IllegalArgumentException("Universe must be between 1 and 63999");
+        }
+        this.ledCount = ledCount;
+        this.packets = new ByteBuffer[(ledCount + PIXELS_PER_UNIVERSE - 1) / PIXELS_PER_UNIVERSE];
+
+        UUID cid = UUID.randomUUID();
+        byte[] name = sourceName.getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(name.length, SOURCE_NAME_LENGTH - 1);
+
+        for (int u = 0; u < packets.length; u++) {
+            int slots = 3 * (Math.min(ledCount, (u + 1) * PIXELS_PER_UNIVERSE) - u * PIXELS_PER_UNIVERSE);
+            int length = HEADER_LENGTH + slots;
+            ByteBuffer packet = ByteBuffer.allocateDirect(length);
+
+            // Root layer
+            packet.putShort(0, (short) 0x0010)
+                    .putShort(2, (short) 0)
+                    .put(4, ACN_PACKET_IDENTIFIER)
+                    .putShort(16, flagsAndLength(length - 16))
+                    .putInt(18, VECTOR_ROOT_E131_DATA)
+                    .putLong(22, cid.getMostSignificantBits())
+                    .putLong(30, cid.getLeastSignificantBits());
+
+            // Framing layer; bytes after the name up to the priority stay zero
+            packet.putShort(38, flagsAndLength(length - 38))
+                    .putInt(40, VECTOR_E131_DATA_PACKET)
+                    .put(44, name, 0, nameLength)
+                    .put(108, DEFAULT_PRIORITY)
+                    .putShort(109, (short) 0)
+                    .put(112, (byte) 0)
+                    .putShort(113, (short) (firstUniverse + u));
+
+            // DMP layer
+            packet.putShort(115, flagsAndLength(length - 115))
+                    .put(117, VECTOR_DMP_SET_PROPERTY)
+                    .put(118, (byte) 0xA1)
+                    .putShort(119, (short) 0)
+                    .putShort(121, (short) 1)
+                    .putShort(123, (short) (slots + 1))
+                    .put(125, (byte) 0);
+            packets[u] = packet;
+        }
+    }
+
+    private static short flagsAndLength(int length) {
+        return (short) (0x7000 | length);
+    }
+
+    @Override
+    public int pixelsPerPacket() {
+        return PIXELS_PER_UNIVERSE;
+    }
+
+    @Override
+    public int packetCount() {
+        return packets.length;
+    }
+
+    @Override
+    public ByteBuffer encode(int packet, LedStripState state, int sequence, boolean last) {
+        ByteBuffer buffer = packets[packet];
+        buffer.put(SEQUENCE_OFFSET, (byte) sequence);
+
+        int from = packet * PIXELS_PER_UNIVERSE;
+        int to = Math.min(ledCount, from + PIXELS_PER_UNIVERSE);
+        int offset = HEADER_LENGTH;
+        for (int i = from; i < to; i++) {
+            int rgb = state.rgbAt(i);
+            buffer.put(offset, (byte) (rgb >>> 16))
+                    .put(offset + 1, (byte) (rgb >>> 8))
+                    .put(offset + 2, (byte) rgb);
+            offset += 3;
+        }
+        return buffer.clear();
+    }
+}
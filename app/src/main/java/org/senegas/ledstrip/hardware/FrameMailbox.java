@@ -0,0 +1,77 @@
+package org.senegas.ledstrip.hardware;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+/**
+ * Single-slot, latest-frame-wins handoff from the render thread to one worker.
+ *
+ * Offering never blocks on the consumer: an unconsumed frame is released and
+ * counted as dropped. Because the consumer then misses that frame's dirty
+ * range, the next frame it takes is flagged for a full apply.
+ */
+final class FrameMailbox {
+    private LedStripState pending;
+    // The consumer has not seen every frame since its last take: apply the next one fully
+    private boolean fullFrameNeeded = true;
+    private boolean tookFullFrame;
+    private boolean open = true;
+    private long droppedFrames;
+
+    /**
+     * @param fullFrame true if the frame must be applied as a whole rather than as a delta
+     */
+    synchronized void offer(LedStripState state, boolean fullFrame) {
+        if (!open) {
+            return;
+        }
+        LedStripState previous = pending;
+        pending = state.retain();
+        if (previous != null) {
+            previous.release();
+            droppedFrames++;
+            fullFrameNeeded = true;
+        }
+        if (fullFrame) {
+            fullFrameNeeded = true;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Waits for the next frame; the caller owns one reference and must release it.
+     * @return the latest frame, or null once closed
+     */
+    synchronized LedStripState take() throws InterruptedException {
+        while (pending == null && open) {
+            wait();
+        }
+        if (pending == null) {
+            return null;
+        }
+        LedStripState state = pending;
+        pending = null;
+        tookFullFrame = fullFrameNeeded;
+        fullFrameNeeded = false;
+        return state;
+    }
+
+    /**
+     * @return true if the frame returned by the last {@link #take()} must be applied fully
+     */
+    synchronized boolean tookFullFrame() {
+        return tookFullFrame;
+    }
+
+    synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    synchronized void close() {
+        open = false;
+        if (pending != null) {
+            pending.release();
+            pending = null;
+        }
+        notifyAll();
+    }
+}
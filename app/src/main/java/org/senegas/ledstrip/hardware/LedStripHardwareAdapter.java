@@ -5,7 +5,20 @@ import org.senegas.ledstrip.domain.led.LedStripState;
 public interface LedStripHardwareAdapter {
     /**
      * Apply the state to hardware.
+     *
+     * The state may be a pooled frame that is recycled once this call returns;
+     * implementations that keep it longer must {@code retain()} it and
+     * {@code release()} it when done, or copy what they need.
      */
     void apply(LedStripState state);
-}
 
+    /**
+     * Apply a frame of which only {@code state.getDirtyFrom()} to
+     * {@code state.getDirtyTo()} differs from the previous one delivered to
+     * this adapter. Adapters that can update partially override this; the
+     * default applies the whole frame.
+     */
+    default void applyDelta(LedStripState state) {
+        apply(state);
+    }
+}
@@ -0,0 +1,24 @@
+package org.senegas.ledstrip.hardware;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes a strip into a fixed set of pre-allocated network packets, each
+ * carrying a contiguous run of pixels.
+ */
+interface PixelPacketEncoder {
+
+    int pixelsPerPacket();
+
+    int packetCount();
+
+    /**
+     * Writes pixels of {@code state} belonging to {@code packet} into that
+     * packet's buffer and returns it, positioned for a channel write.
+     *
+     * @param last whether this is the final packet sent for the frame
+     */
+    ByteBuffer encode(int packet, LedStripState state, int sequence, boolean last);
+}
@@ -9,12 +9,16 @@ public class RecordingAdapter implements LedStripHardwareAdapter {
     private LedStripState last;
 
     @Override
-    public void apply(LedStripState state) {
-        this.last = state;
+    public synchronized void apply(LedStripState state) {
+        LedStripState previous = this.last;
+        this.last = state.retain();
+        if (previous != null) {
+            previous.release();
+        }
         // Could log or render to UI in a simulation
     }
 
-    public Optional<LedStripState> last() {
+    public synchronized Optional<LedStripState> last() {
         return Optional.ofNullable(last);
     }
 }
@@ -0,0 +1,203 @@
+package org.senegas.ledstrip.hardware;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams frames to a USB/serial-attached controller as Adalight or TPM2
+ * byte frames, through a device path, named pipe or file.
+ *
+ * {@link #apply} only hands the frame to a writer thread through a
+ * latest-frame-wins {@link FrameMailbox}, so transmitting one frame overlaps
+ * rendering the next; a frame the link was too slow for is skipped and
+ * counted. The writer encodes into a single wire buffer whose header is
+ * written once, and releases the frame before transmitting.
+ */
+public class StreamLedStripHardwareAdapter implements LedStripHardwareAdapter, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(StreamLedStripHardwareAdapter.class.getName());
+
+    public enum Framing {
+        /** "Ada" magic, LED count minus one and a checksum, then pixel bytes. */
+        ADALIGHT(6, 0),
+        /** TPM2 data frame: start byte, type, payload size, pixel bytes, end byte. */
+        TPM2(4, 1);
+
+        final int headerLength;
+        final int trailerLength;
+
+        Framing(int headerLength, int trailerLength) {
+            this.headerLength = headerLength;
+            this.trailerLength = trailerLength;
+        }
+    }
+
+    private static final byte TPM2_START = (byte) 0xC9;
+    private static final byte TPM2_DATA_FRAME = (byte) 0xDA;
+    private static final byte TPM2_END = 0x36;
+    private static final int MAX_PAYLOAD = 0xFFFF;
+
+    private final int ledCount;
+    private final ColorOrder colorOrder;
+    private final WritableByteChannel channel;
+    private final ByteBuffer wire;
+    private final int dataOffset;
+    private final FrameMailbox mailbox = new FrameMailbox();
+    private final Thread writer;
+
+    // Only touched by the writer thread, read through the getters
+    private volatile long writtenFrames;
+    private volatile long failedFrames;
+
+    /**
+     * Opens {@code device} for writing, creating it if it is a plain file.
+     * Opening a named pipe blocks until a reader is attached.
+     */
+    public StreamLedStripHardwareAdapter(int ledCount, Framing framing, ColorOrder colorOrder, Path device) {
+        this(ledCount, framing, colorOrder, open(device));
+    }
+
+    public StreamLedStripHardwareAdapter(int ledCount, Framing framing, ColorOrder colorOrder,
+                                         WritableByteChannel channel) {
+        if (ledCount <= 0) {
+            throw new IllegalArgumentException("LED count must be positive");
+        }
+        Objects.requireNonNull(framing);
+        int payload = 3 * ledCount;
+        if (payload > MAX_PAYLOAD) {
+            throw new IllegalArgumentException(ledCount + " LEDs do not fit in one " + framing + " frame");
+        }
+        this.ledCount = ledCount;
+        this.colorOrder = Objects.requireNonNull(colorOrder);
+        this.channel = Objects.requireNonNull(channel);
+        this.dataOffset = framing.headerLength;
+        this.wire = ByteBuffer.allocateDirect(framing.headerLength + payload + framing.trailerLength);
+
+        switch (framing) {
+            case ADALIGHT -> {
+                int count = ledCount - 1;
+                byte hi = (byte) (count >>> 8);
+                byte lo = (byte) count;
+                wire.put(0, (byte) 'A').put(1, (byte) 'd').put(2, (byte) 'a')
+                        .put(3, hi).put(4, lo).put(5, (byte) (hi ^ lo ^ 0x55));
+            }
+            case TPM2 -> wire.put(0, TPM2_START).put(1, TPM2_DATA_FRAME)
+                    .putShort(2, (short) payload)
+                    .put(dataOffset + payload, TPM2_END);
+        }
+
+        this.writer = Thread.ofPlatform()
+                .name("ledstrip-stream-writer")
+                .daemon(true)
+                .unstarted(this::writeFrames);
+        writer.start();
+    }
+
+    private static FileChannel open(Path device) {
+        try {
+            return FileChannel.open(device, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open " + device, e);
+        }
+    }
+
+    @Override
+    public void apply(LedStripState state) {
+        if (state.getLength() != ledCount) {
+            throw new IllegalArgumentException("State length " + state.getLength()
+                    + " does not match " + ledCount + " LEDs");
+        }
+        mailbox.offer(state, true);
+    }
+
+    @Override
+    public void applyDelta(LedStripState state) {
+        // The wire formats carry whole frames; an unchanged frame is not worth resending
+        if (state.hasChanges()) {
+            apply(state);
+        }
+    }
+
+    private void writeFrames() {
+        try {
+            LedStripState state;
+            while ((state = mailbox.take()) != null) {
+                try {
+                    encode(state);
+                } finally {
+                    state.release();
+                }
+                write();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void encode(LedStripState state) {
+        int first = colorOrder.firstShift;
+        int second = colorOrder.secondShift;
+        int third = colorOrder.thirdShift;
+        int offset = dataOffset;
+        for (int i = 0; i < ledCount; i++) {
+            int rgb = state.rgbAt(i);
+            wire.put(offset, (byte) (rgb >>> first))
+                    .put(offset + 1, (byte) (rgb >>> second))
+                    .put(offset + 2, (byte) (rgb >>> third));
+            offset += 3;
+        }
+    }
+
+    private void write() {
+        wire.clear();
+        try {
+            while (wire.hasRemaining()) {
+                channel.write(wire);
+            }
+            writtenFrames++;
+        } catch (IOException e) {
+            if (failedFrames++ == 0) {
+                LOGGER.log(Level.WARNING, "Cannot write LED frame", e);
+            }
+        }
+    }
+
+    public long getWrittenFrames() {
+        return writtenFrames;
+    }
+
+    /**
+     * @return frames skipped because a newer one arrived before the link was free
+     */
+    public long getDroppedFrames() {
+        return mailbox.getDroppedFrames();
+    }
+
+    public long getFailedFrames() {
+        return failedFrames;
+    }
+
+    @Override
+    public void close() {
+        mailbox.close();
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Error closing LED stream", e);
+        }
+    }
+}
@@ -5,34 +5,125 @@ import org.senegas.ledstrip.domain.led.LedStripState;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class SwingLedStripHardwareAdapter extends JPanel implements LedStripHardwareAdapter {
 
+    /**
+     * How LEDs are painted.
+     */
+    public enum RenderMode {
+        /** Draw every LED with antialiased shapes on each paint. */
+        VECTOR,
+        /**
+         * Blit per-color pre-rendered sprites into an offscreen image, redrawing only
+         * LEDs whose color changed, with at most one repaint pending at a time.
+         * Glows are clipped to each LED's own cell. Suited to long strips.
+         */
+        SPRITES
+    }
+
     private static final int LED_RADIUS = 30;
     private static final int LED_SPACING = 5;
+    private static final int GLOW_SIZE = 10;
+    private static final int CELL_WIDTH = LED_RADIUS + LED_SPACING;
+    private static final int CELL_HEIGHT = LED_RADIUS + 2 * LED_SPACING;
+    private static final int MAX_CACHED_SPRITES = 1024;
+    // Sprites are keyed on 5 bits per channel so gradients share a bounded set of images
+    private static final int SPRITE_COLOR_MASK = 0xF8F8F8;
+    // Set in the key of every lit color, so near-black ones do not share the unlit sprite
+    private static final int SPRITE_LIT = 1 << 24;
+    private static final Font INDEX_FONT = new Font("Arial", Font.BOLD, 10);
+    private static final BasicStroke BORDER_STROKE = new BasicStroke(2);
+
+    private final RenderMode renderMode;
 
-    private LedStripState currentState = null;
+    // Frames are copied on apply so pooled states never outlive the call;
+    // the EDT swaps the buffers under the lock and paints from paintedPixels.
+    private final Object pixelLock = new Object();
+    private int[] appliedPixels;
+    private int[] paintedPixels;
+    private boolean updatePending = false;
+
+    // Sprite mode state, only touched on the EDT
+    private final Map<Integer, BufferedImage> sprites =
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+                    return size() > MAX_CACHED_SPRITES;
+                }
+            };
+    private BufferedImage frameImage;
+    private int[] composedPixels;
+    private final AtomicBoolean repaintPending = new AtomicBoolean();
 
     public SwingLedStripHardwareAdapter(int ledCount) {
+        this(ledCount, RenderMode.VECTOR);
+    }
+
+    public SwingLedStripHardwareAdapter(int ledCount, RenderMode renderMode) {
+        this.renderMode = Objects.requireNonNull(renderMode);
+        this.appliedPixels = new int[ledCount];
+        this.paintedPixels = new int[ledCount];
+
         int totalWidth = ledCount * (LED_RADIUS + LED_SPACING) + LED_SPACING;
-        int totalHeight = LED_RADIUS + 2 * LED_SPACING;
+        int totalHeight = CELL_HEIGHT;
         setPreferredSize(new Dimension(totalWidth, totalHeight));
         setBackground(new java.awt.Color(40, 40, 40));
     }
 
     @Override
     public void apply(LedStripState state) {
+        update(state, 0, appliedPixels.length);
+    }
+
+    @Override
+    public void applyDelta(LedStripState state) {
         if (state == null) {
             throw new IllegalArgumentException("State cannot be null");
         }
+        if (state.hasChanges()) {
+            update(state, state.getDirtyFrom(), state.getDirtyTo());
+        }
+    }
+
+    private void update(LedStripState state, int from, int to) {
+        if (state == null) {
+            throw new IllegalArgumentException("State cannot be null");
+        }
+        if (state.getLength() != appliedPixels.length) {
+            throw new IllegalArgumentException("State length " + state.getLength()
+                    + " does not match " + appliedPixels.length + " LEDs");
+        }
+
+        synchronized (pixelLock) {
+            state.copyTo(appliedPixels);
+            updatePending = true;
+        }
+
+        if (renderMode == RenderMode.SPRITES) {
+            // Coalesce: the pending paint will pick up whatever frame is latest by then
+            if (repaintPending.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(this::repaint);
+            }
+            return;
+        }
 
-        this.currentState = state;
+        // Only the changed LEDs (plus their glow) need repainting
+        int x = LED_SPACING + from * (LED_RADIUS + LED_SPACING) - GLOW_SIZE;
+        int width = (to - from) * (LED_RADIUS + LED_SPACING) + 2 * GLOW_SIZE;
+        Runnable repaintDirty = () -> repaint(x, 0, width, getHeight());
 
         // Ensure UI update happens on Event Dispatch Thread
         if (SwingUtilities.isEventDispatchThread()) {
-            repaint();
+            repaintDirty.run();
         } else {
-            SwingUtilities.invokeLater(this::repaint);
+            SwingUtilities.invokeLater(repaintDirty);
         }
     }
 
@@ -40,21 +131,107 @@ public class SwingLedStripHardwareAdapter extends JPanel implements LedStripHard
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
+        repaintPending.set(false);
 
         // Enable anti-aliasing for smooth rendering
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                 RenderingHints.VALUE_ANTIALIAS_ON);
 
-        // Draw each LED from current state
-        for (int i = 0; i < currentState.getLength(); i++) {
-            drawLed(g2d, i, currentState.getColorAt(i));
+        synchronized (pixelLock) {
+            if (updatePending) {
+                int[] swap = paintedPixels;
+                paintedPixels = appliedPixels;
+                appliedPixels = swap;
+                updatePending = false;
+            }
         }
+
+        if (renderMode == RenderMode.SPRITES) {
+            composeChangedLeds();
+            g2d.drawImage(frameImage, 0, 0, null);
+            return;
+        }
+
+        // Draw each LED from current state that intersects the repainted area
+        Rectangle clip = g2d.getClipBounds();
+        int first = 0;
+        int last = paintedPixels.length - 1;
+        if (clip != null) {
+            int cell = LED_RADIUS + LED_SPACING;
+            first = Math.max(first, (clip.x - LED_SPACING - GLOW_SIZE) / cell);
+            last = Math.min(last, (clip.x + clip.width + GLOW_SIZE) / cell);
+        }
+        for (int i = first; i <= last; i++) {
+            drawLed(g2d, i, RgbColor.fromPackedRgb(paintedPixels[i]));
+        }
+    }
+
+    /* Redraws into the offscreen frame only the LEDs whose color differs from what it shows */
+    private void composeChangedLeds() {
+        if (frameImage == null) {
+            Dimension size = getPreferredSize();
+            frameImage = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+            composedPixels = new int[paintedPixels.length];
+            Arrays.fill(composedPixels, -1);
+
+            Graphics2D background = frameImage.createGraphics();
+            background.setColor(getBackground());
+            background.fillRect(0, 0, size.width, size.height);
+            background.dispose();
+        }
+
+        Graphics2D g2d = null;
+        for (int i = 0; i < paintedPixels.length; i++) {
+            int rgb = paintedPixels[i];
+            if (rgb == composedPixels[i]) {
+                continue;
+            }
+            if (g2d == null) {
+                g2d = frameImage.createGraphics();
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                        RenderingHints.VALUE_ANTIALIAS_ON);
+            }
+            int x = LED_SPACING + i * CELL_WIDTH;
+            g2d.drawImage(sprite(rgb), x - LED_SPACING / 2, 0, null);
+            drawIndex(g2d, i, x, LED_SPACING, RgbColor.fromPackedRgb(rgb));
+            composedPixels[i] = rgb;
+        }
+        if (g2d != null) {
+            g2d.dispose();
+        }
+    }
+
+    private BufferedImage sprite(int rgb) {
+        int key = rgb == 0 ? 0 : (rgb & SPRITE_COLOR_MASK) | SPRITE_LIT;
+        BufferedImage sprite = sprites.get(key);
+        if (sprite == null) {
+            sprite = new BufferedImage(CELL_WIDTH, CELL_HEIGHT, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = sprite.createGraphics();
+            g2d.setColor(getBackground());
+            g2d.fillRect(0, 0, CELL_WIDTH, CELL_HEIGHT);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_ON);
+            int quantized = key & SPRITE_COLOR_MASK;
+            int spriteRgb = quantized | (quantized >>> 5) & 0x070707;
+            drawLedBody(g2d, LED_SPACING / 2, LED_SPACING, RgbColor.fromPackedRgb(spriteRgb), key != 0);
+            g2d.dispose();
+            sprites.put(key, sprite);
+        }
+        return sprite;
     }
 
     private void drawLed(Graphics2D g2d, int index, RgbColor color) {
         int x = LED_SPACING + index * (LED_RADIUS + LED_SPACING);
         int y = LED_SPACING;
 
+        drawLedBody(g2d, x, y, color, !color.equals(RgbColor.OFF));
+        drawIndex(g2d, index, x, y, color);
+    }
+
+    /**
+     * @param isOn whether the LED is lit, i.e. has any color, even one drawn as black
+     */
+    private void drawLedBody(Graphics2D g2d, int x, int y, RgbColor color, boolean isOn) {
         // Convert RgbColor to AWT Color
         java.awt.Color awtColor = new java.awt.Color(
                 color.getRed(),
@@ -62,26 +239,25 @@ public class SwingLedStripHardwareAdapter extends JPanel implements LedStripHard
                 color.getBlue()
         );
 
-        // Determine if LED is "on" (has any color)
-        boolean isOn = !color.equals(RgbColor.OFF);
-
         // Draw LED body (circle)
         g2d.setColor(awtColor);
         g2d.fillOval(x, y, LED_RADIUS, LED_RADIUS);
 
         // Draw border
         g2d.setColor(isOn ? java.awt.Color.WHITE : java.awt.Color.GRAY);
-        g2d.setStroke(new BasicStroke(2));
+        g2d.setStroke(BORDER_STROKE);
         g2d.drawOval(x, y, LED_RADIUS, LED_RADIUS);
 
         // Draw glow effect if LED is on
         if (isOn) {
             drawGlow(g2d, x, y, awtColor);
         }
+    }
 
+    private void drawIndex(Graphics2D g2d, int index, int x, int y, RgbColor color) {
         // Draw LED index number
         g2d.setColor(getContrastColor(color));
-        g2d.setFont(new Font("Arial", Font.BOLD, 10));
+        g2d.setFont(INDEX_FONT);
         FontMetrics fm = g2d.getFontMetrics();
         String indexStr = String.valueOf(index);
         int textX = x + (LED_RADIUS - fm.stringWidth(indexStr)) / 2;
@@ -90,9 +266,8 @@ public class SwingLedStripHardwareAdapter extends JPanel implements LedStripHard
     }
 
     private void drawGlow(Graphics2D g2d, int x, int y, java.awt.Color color) {
-        int glowSize = 10;
-        for (int i = 0; i < glowSize; i++) {
-            float alpha = 0.05f * (glowSize - i) / glowSize;
+        for (int i = 0; i < GLOW_SIZE; i++) {
+            float alpha = 0.05f * (GLOW_SIZE - i) / GLOW_SIZE;
             java.awt.Color glowColor = new java.awt.Color(
                     color.getRed() / 255f,
                     color.getGreen() / 255f,
@@ -115,6 +290,8 @@ public class SwingLedStripHardwareAdapter extends JPanel implements LedStripHard
     }
 
     public LedStripState getCurrentState() {
-        return currentState;
+        synchronized (pixelLock) {
+            return LedStripState.ofPackedRgb(updatePending ? appliedPixels : paintedPixels);
+        }
     }
 }
@@ -0,0 +1,166 @@
+package org.senegas.ledstrip.hardware;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends frames to a network pixel controller over UDP, as DDP or E1.31
+ * (sACN) packets.
+ *
+ * Packets are pre-allocated direct buffers with their headers written once,
+ * so a frame only rewrites pixel bytes and sequence numbers. The channel is
+ * non-blocking: a packet the socket cannot take immediately is dropped and
+ * counted rather than holding back the animation, as is a packet refused by
+ * a controller that is not listening yet.
+ *
+ * With DDP, {@link #applyDelta} only sends the packets covering the changed
+ * LEDs, and a full frame every {@value #FULL_FRAME_INTERVAL} frames repairs
+ * anything lost on the way. E1.31 always sends every universe, as receivers
+ * treat a universe that goes quiet as lost.
+ */
+public class UdpPixelLedStripHardwareAdapter implements LedStripHardwareAdapter, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(UdpPixelLedStripHardwareAdapter.class.getName());
+
+    static final int FULL_FRAME_INTERVAL = 50;
+
+    public enum Protocol {
+        DDP(4048),
+        E131(5568);
+
+        private final int defaultPort;
+
+        Protocol(int defaultPort) {
+            this.defaultPort = defaultPort;
+        }
+
+        public int getDefaultPort() {
+            return defaultPort;
+        }
+    }
+
+    private final int ledCount;
+    private final Protocol protocol;
+    private final PixelPacketEncoder encoder;
+    private final DatagramChannel channel;
+
+    // Guarded by this
+    private int sequence = 0;
+    private int framesSinceFull = FULL_FRAME_INTERVAL;
+    private long sentPackets = 0;
+    private long droppedPackets = 0;
+    private boolean failureLogged = false;
+
+    /**
+     * Targets the protocol's standard port on {@code host}, with E1.31
+     * output starting at universe 1.
+     */
+    public UdpPixelLedStripHardwareAdapter(int ledCount, Protocol protocol, String host) {
+        this(ledCount, protocol, new InetSocketAddress(host, protocol.getDefaultPort()), 1);
+    }
+
+    /**
+     * @param firstUniverse E1.31 universe of the first 170 LEDs; ignored for DDP
+     */
+    public UdpPixelLedStripHardwareAdapter(int ledCount, Protocol protocol, InetSocketAddress target,
+                                           int firstUniverse) {
+        if (ledCount <= 0) {
+            throw new IllegalArgumentException("LED count must be positive");
+        }
+        this.ledCount = ledCount;
+        this.protocol = Objects.requireNonNull(protocol);
+        Objects.requireNonNull(target);
+        this.encoder = switch (protocol) {
+            case DDP -> new DdpPacketEncoder(ledCount);
+            case E131 -> new E131PacketEncoder(ledCount, firstUniverse, "ledstrip");
+        };
+
+        try {
+            this.channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.connect(target);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open UDP channel to " + target, e);
+        }
+    }
+
+    @Override
+    public void apply(LedStripState state) {
+        checkLength(state);
+        send(state, 0, encoder.packetCount() - 1);
+    }
+
+    @Override
+    public void applyDelta(LedStripState state) {
+        checkLength(state);
+        synchronized (this) {
+            if (protocol != Protocol.DDP || framesSinceFull >= FULL_FRAME_INTERVAL) {
+                send(state, 0, encoder.packetCount() - 1);
+            } else if (state.hasChanges()) {
+                int perPacket = encoder.pixelsPerPacket();
+                send(state, state.getDirtyFrom() / perPacket, (state.getDirtyTo() - 1) / perPacket);
+            }
+        }
+    }
+
+    private void checkLength(LedStripState state) {
+        if (state.getLength() != ledCount) {
+            throw new IllegalArgumentException("State length " + state.getLength()
+                    + " does not match " + ledCount + " LEDs");
+        }
+    }
+
+    private synchronized void send(LedStripState state, int firstPacket, int lastPacket) {
+        boolean full = firstPacket == 0 && lastPacket == encoder.packetCount() - 1;
+        framesSinceFull = full ? 0 : framesSinceFull + 1;
+        sequence++;
+
+        for (int p = firstPacket; p <= lastPacket; p++) {
+            ByteBuffer packet = encoder.encode(p, state, sequence, p == lastPacket);
+            try {
+                if (channel.write(packet) > 0) {
+                    sentPackets++;
+                } else {
+                    droppedPackets++;
+                }
+            } catch (PortUnreachableException e) {
+                droppedPackets++;
+            } catch (IOException e) {
+                droppedPackets++;
+                if (!failureLogged) {
+                    failureLogged = true;
+                    LOGGER.log(Level.WARNING, "Cannot send pixel packets", e);
+                }
+            }
+        }
+    }
+
+    public synchronized long getSentPackets() {
+        return sentPackets;
+    }
+
+    /**
+     * Packets not handed to the network, because the socket buffer was full
+     * or the controller refused them.
+     */
+    public synchronized long getDroppedPackets() {
+        return droppedPackets;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Error closing UDP channel", e);
+        }
+    }
+}
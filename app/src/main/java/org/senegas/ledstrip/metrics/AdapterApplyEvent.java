@@ -0,0 +1,29 @@
+package org.senegas.ledstrip.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event spanning one frame delivered to a hardware adapter.
+ */
+@Name("org.senegas.ledstrip.AdapterApply")
+@Label("LED Strip Adapter Apply")
+@Category({"LED Strip", "Output"})
+@Description("A frame delivered to a hardware adapter")
+@Threshold("5 ms")
+@StackTrace(false)
+public final class AdapterApplyEvent extends jdk.jfr.Event {
+    @Label("Adapter")
+    public Class<?> adapter;
+
+    @Label("Delta")
+    @Description("Whether only the changed range was delivered")
+    public boolean delta;
+
+    @Label("LED Count")
+    public int ledCount;
+}
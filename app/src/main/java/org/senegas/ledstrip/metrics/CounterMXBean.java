@@ -0,0 +1,10 @@
+package org.senegas.ledstrip.metrics;
+
+/**
+ * JMX view of a {@link Counter}.
+ */
+public interface CounterMXBean {
+    long getCount();
+
+    void reset();
+}
@@ -0,0 +1,29 @@
+package org.senegas.ledstrip.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event spanning one effect rendering onto a strip.
+ */
+@Name("org.senegas.ledstrip.EffectRender")
+@Label("LED Strip Effect Render")
+@Category({"LED Strip", "Rendering"})
+@Description("An effect applied to a strip")
+@Threshold("5 ms")
+@StackTrace(false)
+public final class EffectRenderEvent extends jdk.jfr.Event {
+    @Label("Effect")
+    public String effect;
+
+    @Label("LED Count")
+    public int ledCount;
+
+    @Label("Changed")
+    @Description("Whether the effect changed the strip")
+    public boolean changed;
+}
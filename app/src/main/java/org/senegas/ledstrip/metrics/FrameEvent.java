@@ -0,0 +1,39 @@
+package org.senegas.ledstrip.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event spanning one animation engine frame, from the start
+ * of rendering to the hand-off of the last strip to its adapter. Only frames
+ * slower than the threshold are recorded unless the recording settings
+ * lower it.
+ */
+@Name("org.senegas.ledstrip.Frame")
+@Label("LED Strip Frame")
+@Category({"LED Strip", "Rendering"})
+@Description("One frame rendered and published by an animation engine")
+@Threshold("10 ms")
+@StackTrace(false)
+public final class FrameEvent extends jdk.jfr.Event {
+    @Label("Effect")
+    @Description("Effect rendered, or null when the engine drives several strips")
+    public String effect;
+
+    @Label("Strips")
+    public int strips;
+
+    @Label("Lateness")
+    @Description("How long after its deadline the frame started")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lateness;
+
+    @Label("Skipped Frames")
+    @Description("Deadlines dropped after this frame because the engine fell behind")
+    public long skippedFrames;
+}
@@ -0,0 +1,135 @@
+package org.senegas.ledstrip.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of non-negative values, typically nanoseconds or bytes.
+ *
+ * Values below 32 get a bucket each; above that, every power of two is split
+ * into 16 linear buckets, so any value is reported within about 6% over its
+ * whole range with a fixed 960 buckets. Recording is a bucket index computed
+ * from the leading zeros and three atomic updates, with no locking or
+ * allocation, and may happen from several threads at once.
+ */
+public final class Histogram implements HistogramMXBean {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram() {
+    }
+
+    /**
+     * Records one value; negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(v));
+        total.add(v);
+        long current = max.get();
+        while (v > current && !max.compareAndSet(current, v)) {
+            current = max.get();
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return largest value that falls in the bucket
+     */
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * Summarises the values recorded so far. Values recorded concurrently
+     * may or may not be included.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            copy[b] = counts.get(b);
+            count += copy[b];
+        }
+        if (count == 0) {
+            return HistogramSnapshot.EMPTY;
+        }
+        long maxValue = max.get();
+        return new HistogramSnapshot(count, (double) total.sum() / count,
+                percentile(copy, count, 0.50, maxValue),
+                percentile(copy, count, 0.90, maxValue),
+                percentile(copy, count, 0.99, maxValue),
+                maxValue);
+    }
+
+    private static long percentile(long[] counts, long count, double quantile, long maxValue) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return Math.min(upperBound(b), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    @Override
+    public long getCount() {
+        return snapshot().count();
+    }
+
+    @Override
+    public double getMean() {
+        return snapshot().mean();
+    }
+
+    @Override
+    public long getP50() {
+        return snapshot().p50();
+    }
+
+    @Override
+    public long getP90() {
+        return snapshot().p90();
+    }
+
+    @Override
+    public long getP99() {
+        return snapshot().p99();
+    }
+
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+
+    @Override
+    public void reset() {
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            counts.set(b, 0);
+        }
+        total.reset();
+        max.set(0);
+    }
+}
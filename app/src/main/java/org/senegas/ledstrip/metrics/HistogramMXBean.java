@@ -0,0 +1,20 @@
+package org.senegas.ledstrip.metrics;
+
+/**
+ * JMX view of a {@link Histogram}. Percentiles are computed on each call.
+ */
+public interface HistogramMXBean {
+    long getCount();
+
+    double getMean();
+
+    long getP50();
+
+    long getP90();
+
+    long getP99();
+
+    long getMax();
+
+    void reset();
+}
@@ -0,0 +1,10 @@
+package org.senegas.ledstrip.metrics;
+
+/**
+ * Point-in-time summary of a {@link Histogram}. Percentiles are the upper
+ * bound of the bucket they fall in, capped at the recorded maximum.
+ */
+public record HistogramSnapshot(long count, double mean, long p50, long p90, long p99, long max) {
+
+    static final HistogramSnapshot EMPTY = new HistogramSnapshot(0, 0, 0, 0, 0, 0);
+}
@@ -0,0 +1,52 @@
+package org.senegas.ledstrip.metrics;
+
+/**
+ * Rate of recent events per second, e.g. achieved frames per second.
+ *
+ * The rate is the inverse of an exponentially weighted average of the
+ * intervals between {@link #mark} calls, so it follows changes within a few
+ * dozen events. Event times are passed in, which keeps the meter on the
+ * same clock as the caller.
+ */
+public final class Meter implements MeterMXBean {
+    private static final double SMOOTHING = 0.05;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private long count;
+    private long lastNanos;
+    private double meanIntervalNanos;
+
+    Meter() {
+    }
+
+    public synchronized void mark(long timestampNanos) {
+        if (count > 0) {
+            long interval = Math.max(0, timestampNanos - lastNanos);
+            meanIntervalNanos = count == 1
+                    ? interval
+                    : meanIntervalNanos + SMOOTHING * (interval - meanIntervalNanos);
+        }
+        lastNanos = timestampNanos;
+        count++;
+    }
+
+    @Override
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return events per second, or 0 before the second event
+     */
+    @Override
+    public synchronized double getRate() {
+        return meanIntervalNanos > 0 ? NANOS_PER_SECOND / meanIntervalNanos : 0;
+    }
+
+    @Override
+    public synchronized void reset() {
+        count = 0;
+        lastNanos = 0;
+        meanIntervalNanos = 0;
+    }
+}
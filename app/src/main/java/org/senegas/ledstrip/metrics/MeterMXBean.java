@@ -0,0 +1,12 @@
+package org.senegas.ledstrip.metrics;
+
+/**
+ * JMX view of a {@link Meter}.
+ */
+public interface MeterMXBean {
+    long getCount();
+
+    double getRate();
+
+    void reset();
+}
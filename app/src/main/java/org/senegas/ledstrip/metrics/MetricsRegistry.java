@@ -0,0 +1,172 @@
+package org.senegas.ledstrip.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Named histograms, counters and meters describing frame rendering and
+ * delivery.
+ *
+ * Metrics are created on first lookup and live as long as the registry;
+ * callers look them up once and keep the reference, so recording never goes
+ * through the registry. Values can be pulled with {@link #snapshot()} or,
+ * after {@link #publishToJmx()}, read as MXBeans in the
+ * {@value #JMX_DOMAIN} domain.
+ *
+ * The engine, controller and adapters record into {@link #global()}:
+ * <ul>
+ *     <li>{@code effect.render} - time to render an effect onto a strip</li>
+ *     <li>{@code frame.snapshot} - time to copy a strip into a published frame</li>
+ *     <li>{@code adapter.<Type>.apply} - time spent in an adapter per frame</li>
+ *     <li>{@code engine.frame} - time to render and publish a whole frame</li>
+ *     <li>{@code engine.lateness} - how late frames started after their deadline</li>
+ *     <li>{@code engine.allocatedBytes} - heap allocated by the engine thread per frame</li>
+ *     <li>{@code engine.fps} - achieved frames per second</li>
+ *     <li>{@code engine.skippedFrames} - deadlines dropped after falling behind</li>
+ *     <li>{@code multiEngine.*} - the same engine metrics for the multi-strip engine</li>
+ * </ul>
+ * Engines and controllers can be given their own registry instead, e.g. to
+ * keep the metrics of several engines apart.
+ */
+public final class MetricsRegistry {
+    public static final String JMX_DOMAIN = "org.senegas.ledstrip";
+
+    private static final Logger LOGGER = Logger.getLogger(MetricsRegistry.class.getName());
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Object> metrics = new ConcurrentHashMap<>();
+    private final ClassValue<Histogram> adapterLatencies = new ClassValue<>() {
+        @Override
+        protected Histogram computeValue(Class<?> type) {
+            String name = type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName();
+            return histogram("adapter." + name + ".apply");
+        }
+    };
+    private MBeanServer mbeanServer;
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public Histogram histogram(String name) {
+        return lookup(name, Histogram.class);
+    }
+
+    public Counter counter(String name) {
+        return lookup(name, Counter.class);
+    }
+
+    public Meter meter(String name) {
+        return lookup(name, Meter.class);
+    }
+
+    /**
+     * @return the {@code adapter.<Type>.apply} latency histogram of an adapter class
+     */
+    public Histogram adapterLatency(Class<?> adapterType) {
+        return adapterLatencies.get(adapterType);
+    }
+
+    private <T> T lookup(String name, Class<T> type) {
+        Object metric = metrics.get(name);
+        if (metric == null) {
+            metric = metrics.computeIfAbsent(name, n -> create(n, type));
+        }
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric " + name + " is a "
+                    + metric.getClass().getSimpleName() + ", not a " + type.getSimpleName());
+        }
+        return type.cast(metric);
+    }
+
+    private Object create(String name, Class<?> type) {
+        Object metric;
+        if (type == Histogram.class) {
+            metric = new Histogram();
+        } else if (type == Counter.class) {
+            metric = new Counter();
+        } else if (type == Meter.class) {
+            metric = new Meter();
+        } else {
+            throw new IllegalArgumentException("Unsupported metric type " + type);
+        }
+        synchronized (this) {
+            if (mbeanServer != null) {
+                register(mbeanServer, name, metric);
+            }
+        }
+        return metric;
+    }
+
+    /**
+     * Pulls the current value of every metric.
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, HistogramSnapshot> histograms = new TreeMap<>();
+        Map<String, Long> counters = new TreeMap<>();
+        Map<String, Double> rates = new TreeMap<>();
+        metrics.forEach((name, metric) -> {
+            if (metric instanceof Histogram histogram) {
+                histograms.put(name, histogram.snapshot());
+            } else if (metric instanceof Counter counter) {
+                counters.put(name, counter.getCount());
+            } else if (metric instanceof Meter meter) {
+                rates.put(name, meter.getRate());
+            }
+        });
+        return new MetricsSnapshot(histograms, counters, rates);
+    }
+
+    /**
+     * Clears the values of every metric, keeping the metrics themselves.
+     */
+    public void reset() {
+        for (Object metric : metrics.values()) {
+            if (metric instanceof Histogram histogram) {
+                histogram.reset();
+            } else if (metric instanceof Counter counter) {
+                counter.reset();
+            } else if (metric instanceof Meter meter) {
+                meter.reset();
+            }
+        }
+    }
+
+    /**
+     * Registers every metric, including those created later, with the platform
+     * MBean server as {@code org.senegas.ledstrip:type=<Type>,name=<name>}.
+     */
+    public synchronized void publishToJmx() {
+        if (mbeanServer != null) {
+            return;
+        }
+        mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        metrics.forEach((name, metric) -> register(mbeanServer, name, metric));
+    }
+
+    public static ObjectName objectName(String type, String name) {
+        try {
+            return new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Invalid metric name " + name, e);
+        }
+    }
+
+    private static void register(MBeanServer server, String name, Object metric) {
+        try {
+            server.registerMBean(metric, objectName(metric.getClass().getSimpleName(), name));
+        } catch (InstanceAlreadyExistsException e) {
+            LOGGER.log(Level.FINE, "Metric {0} is already registered", name);
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Cannot publish metric " + name, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.senegas.ledstrip.metrics;
+
+import java.util.Map;
+
+/**
+ * Values of every metric in a {@link MetricsRegistry} at one point in time,
+ * keyed and sorted by metric name.
+ *
+ * @param rates events per second of each {@link Meter}
+ */
+public record MetricsSnapshot(
+        Map<String, HistogramSnapshot> histograms,
+        Map<String, Long> counters,
+        Map<String, Double> rates
+) {
+    public MetricsSnapshot {
+        histograms = Map.copyOf(histograms);
+        counters = Map.copyOf(counters);
+        rates = Map.copyOf(rates);
+    }
+}
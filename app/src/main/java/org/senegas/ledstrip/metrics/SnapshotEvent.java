@@ -0,0 +1,26 @@
+package org.senegas.ledstrip.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event spanning the copy of a strip into a published frame.
+ */
+@Name("org.senegas.ledstrip.Snapshot")
+@Label("LED Strip Snapshot")
+@Category({"LED Strip", "Rendering"})
+@Description("A strip copied into a frame for the adapters")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class SnapshotEvent extends jdk.jfr.Event {
+    @Label("LED Count")
+    public int ledCount;
+
+    @Label("Changed LEDs")
+    @Description("Length of the dirty range since the previous frame")
+    public int changedLeds;
+}
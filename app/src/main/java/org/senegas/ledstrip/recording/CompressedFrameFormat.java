@@ -0,0 +1,37 @@
+package org.senegas.ledstrip.recording;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout of a compressed recording, little-endian throughout:
+ *
+ * <pre>
+ * header   (16 bytes)  int magic "LEDZ", short version, short reserved,
+ *                      int LED count, int keyframe interval
+ * records  (repeated)  byte type, varint payload length, payload
+ * index                per frame: varint timestamp delta in ns from the previous frame
+ *                      per keyframe: long file offset of its record
+ * trailer  (24 bytes)  long index offset, int frame count, int keyframe count,
+ *                      int magic "LEDZ", int reserved
+ * </pre>
+ *
+ * Every {@code keyframe interval}-th frame is a keyframe holding the pixels
+ * themselves; the frames in between hold the XOR with their predecessor.
+ * Both are coded with {@link XorRunLengthCodec}, so seeking decodes at most
+ * one keyframe and {@code interval - 1} deltas.
+ */
+final class CompressedFrameFormat {
+    static final int MAGIC = 0x5A44454C; // "LEDZ" read little-endian
+    static final short VERSION = 1;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int HEADER_LENGTH = 16;
+    static final int TRAILER_LENGTH = 24;
+    static final int MAX_RECORD_HEADER_LENGTH = 1 + 5;
+
+    static final byte KEYFRAME = 0;
+    static final byte DELTA_FRAME = 1;
+
+    private CompressedFrameFormat() {
+    }
+}
@@ -0,0 +1,200 @@
+package org.senegas.ledstrip.recording;
+
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.senegas.ledstrip.recording.CompressedFrameFormat.*;
+
+/**
+ * Streaming decoder for recordings written by {@link CompressedFrameWriter}.
+ *
+ * Only the index and the current frame are held in memory. Playing forward
+ * decodes one record per frame into a reusable buffer; seeking elsewhere
+ * restarts from the nearest keyframe at or before the target. Not
+ * thread-safe.
+ */
+public class CompressedFrameReader implements FrameSource {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int ledCount;
+    private final int keyframeInterval;
+    private final long[] timestamps;
+    private final long[] keyframeOffsets;
+    private final long recordsEnd;
+
+    private final int[] pixels;
+    private final ByteBuffer record;
+    private int decodedFrame = -1;
+    private long nextOffset;
+
+    public CompressedFrameReader(Path file) {
+        this.file = file;
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open recording " + file, e);
+        }
+        try {
+            long size = channel.size();
+            if (size < HEADER_LENGTH + TRAILER_LENGTH) {
+                throw new IllegalArgumentException(file + " is not a compressed LED recording");
+            }
+            ByteBuffer header = readFully(0, HEADER_LENGTH);
+            ByteBuffer trailer = readFully(size - TRAILER_LENGTH, TRAILER_LENGTH);
+            if (header.getInt(0) != MAGIC || trailer.getInt(16) != MAGIC) {
+                throw new IllegalArgumentException(file + " is not a complete compressed LED recording");
+            }
+            if (header.getShort(4) != VERSION) {
+                throw new IllegalArgumentException("Unsupported recording version " + header.getShort(4));
+            }
+            this.ledCount = header.getInt(8);
+            this.keyframeInterval = header.getInt(12);
+            this.recordsEnd = trailer.getLong(0);
+            int frameCount = trailer.getInt(8);
+            int keyframes = trailer.getInt(12);
+            if (ledCount <= 0 || keyframeInterval <= 0 || recordsEnd < HEADER_LENGTH
+                    || recordsEnd > size - TRAILER_LENGTH) {
+                throw new IllegalArgumentException(file + " has a corrupt header");
+            }
+
+            ByteBuffer index = readFully(recordsEnd, (int) (size - TRAILER_LENGTH - recordsEnd));
+            this.timestamps = new long[frameCount];
+            long timestamp = 0;
+            for (int i = 0; i < frameCount; i++) {
+                timestamp += XorRunLengthCodec.getVarLong(index);
+                timestamps[i] = timestamp;
+            }
+            this.keyframeOffsets = new long[keyframes];
+            for (int k = 0; k < keyframes; k++) {
+                keyframeOffsets[k] = index.getLong();
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            if (e instanceof IOException io) {
+                throw new UncheckedIOException("Cannot read recording " + file, io);
+            }
+            throw (RuntimeException) e;
+        }
+        this.pixels = new int[ledCount];
+        this.record = ByteBuffer.allocateDirect(MAX_RECORD_HEADER_LENGTH
+                + XorRunLengthCodec.maxEncodedLength(ledCount));
+    }
+
+    private ByteBuffer readFully(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(BYTE_ORDER);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of " + file);
+            }
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public int getLedCount() {
+        return ledCount;
+    }
+
+    @Override
+    public int getFrameCount() {
+        return timestamps.length;
+    }
+
+    @Override
+    public long getTimestampNanos(int frame) {
+        return timestamps[frame];
+    }
+
+    @Override
+    public void renderFrame(int frame, LedStrip strip) {
+        if (strip.getLength() != ledCount) {
+            throw new IllegalArgumentException("Strip length " + strip.getLength()
+                    + " does not match recording of " + ledCount + " LEDs");
+        }
+        seek(frame);
+        strip.setPixelsRgb(pixels);
+    }
+
+    private void seek(int frame) {
+        if (frame < 0 || frame >= timestamps.length) {
+            throw new IndexOutOfBoundsException("Frame " + frame + " of " + timestamps.length);
+        }
+        if (frame == decodedFrame) {
+            return;
+        }
+        int keyframe = frame / keyframeInterval;
+        int keyframeStart = keyframe * keyframeInterval;
+        // Decode forward when the target follows the current frame within its group
+        if (decodedFrame < keyframeStart || decodedFrame > frame) {
+            decodedFrame = keyframeStart - 1;
+            nextOffset = keyframeOffsets[keyframe];
+        }
+        while (decodedFrame < frame) {
+            decodeNext();
+        }
+    }
+
+    private void decodeNext() {
+        long available = recordsEnd - nextOffset;
+        // Type and length first, so only the bytes of this record are read, not a worst-case frame
+        record.clear();
+        record.limit((int) Math.min(MAX_RECORD_HEADER_LENGTH, available));
+        readRecord();
+        int read = record.position();
+        record.flip();
+
+        byte type = record.get();
+        int length = XorRunLengthCodec.getVarint(record);
+        int headerLength = record.position();
+        if (length > available - headerLength || length > record.capacity() - headerLength) {
+            throw new IllegalStateException("Truncated frame " + (decodedFrame + 1) + " in " + file);
+        }
+        record.limit(headerLength + length);
+        if (read < record.limit()) {
+            record.position(read);
+            readRecord();
+            record.position(headerLength);
+        }
+        if (type == KEYFRAME) {
+            Arrays.fill(pixels, 0);
+        }
+        XorRunLengthCodec.decodeXor(record, pixels, ledCount);
+
+        nextOffset += headerLength + length;
+        decodedFrame++;
+    }
+
+    /* Reads the current record from the file into the buffer, from its position up to its limit */
+    private void readRecord() {
+        try {
+            while (record.hasRemaining()) {
+                if (channel.read(record, nextOffset + record.position()) < 0) {
+                    throw new IllegalStateException("Truncated frame " + (decodedFrame + 1) + " in " + file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read recording " + file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close recording " + file, e);
+        }
+    }
+}
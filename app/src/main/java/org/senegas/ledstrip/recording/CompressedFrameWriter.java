@@ -0,0 +1,191 @@
+package org.senegas.ledstrip.recording;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.senegas.ledstrip.recording.CompressedFrameFormat.*;
+
+/**
+ * Writes a recording in the {@link CompressedFrameFormat} layout: periodic
+ * keyframes with run-length coded XOR deltas in between. Frames that differ
+ * from their predecessor in a few pixels take a few bytes instead of four
+ * per LED.
+ *
+ * Each frame is encoded into one reusable buffer and written with a single
+ * gathering write. The seek index is written on {@link #close()}; a
+ * recording that was never closed cannot be read. Not thread-safe.
+ */
+public class CompressedFrameWriter implements FrameSink {
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 120;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int ledCount;
+    private final int keyframeInterval;
+
+    private int[] previous;
+    private int[] current;
+    private final int[] xor;
+    private final ByteBuffer recordHeader = ByteBuffer.allocateDirect(MAX_RECORD_HEADER_LENGTH);
+    private final ByteBuffer payload;
+    private final ByteBuffer[] record;
+
+    private long position;
+    private int frameCount = 0;
+    private long[] timestamps = new long[256];
+    private long[] keyframeOffsets = new long[16];
+    private boolean closed = false;
+
+    public CompressedFrameWriter(Path file, int ledCount) {
+        this(file, ledCount, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * @param keyframeInterval frames per keyframe: higher compresses better, seeks slower
+     */
+    public CompressedFrameWriter(Path file, int ledCount, int keyframeInterval) {
+        if (ledCount <= 0 || keyframeInterval <= 0) {
+            throw new IllegalArgumentException("LED count and keyframe interval must be positive");
+        }
+        this.file = file;
+        this.ledCount = ledCount;
+        this.keyframeInterval = keyframeInterval;
+        this.previous = new int[ledCount];
+        this.current = new int[ledCount];
+        this.xor = new int[ledCount];
+        this.payload = ByteBuffer.allocateDirect(XorRunLengthCodec.maxEncodedLength(ledCount));
+        this.record = new ByteBuffer[]{recordHeader, payload};
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(BYTE_ORDER)
+                .putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) 0)
+                .putInt(ledCount)
+                .putInt(keyframeInterval)
+                .flip();
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            writeFully(header);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create recording " + file, e);
+        }
+        this.position = HEADER_LENGTH;
+    }
+
+    @Override
+    public void append(long timestampNanos, LedStripState state) {
+        if (closed) {
+            throw new IllegalStateException("Recording is closed");
+        }
+        if (state.getLength() != ledCount) {
+            throw new IllegalArgumentException("State length " + state.getLength()
+                    + " does not match " + ledCount + " LEDs");
+        }
+        if (frameCount > 0 && timestampNanos < timestamps[frameCount - 1]) {
+            throw new IllegalArgumentException("Timestamps must not go backwards");
+        }
+
+        state.copyTo(current);
+        boolean keyframe = frameCount % keyframeInterval == 0;
+        int[] coded = current;
+        if (!keyframe) {
+            for (int i = 0; i < ledCount; i++) {
+                xor[i] = current[i] ^ previous[i];
+            }
+            coded = xor;
+        }
+
+        payload.clear();
+        XorRunLengthCodec.encode(coded, ledCount, payload);
+        payload.flip();
+        recordHeader.clear().put(keyframe ? KEYFRAME : DELTA_FRAME);
+        XorRunLengthCodec.putVarint(recordHeader, payload.remaining());
+        recordHeader.flip();
+        long recordLength = recordHeader.remaining() + payload.remaining();
+
+        try {
+            while (payload.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write to recording " + file, e);
+        }
+
+        if (keyframe) {
+            int slot = frameCount / keyframeInterval;
+            if (slot == keyframeOffsets.length) {
+                keyframeOffsets = Arrays.copyOf(keyframeOffsets, slot * 2);
+            }
+            keyframeOffsets[slot] = position;
+        }
+        if (frameCount == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, frameCount * 2);
+        }
+        timestamps[frameCount++] = timestampNanos;
+        position += recordLength;
+
+        int[] swap = previous;
+        previous = current;
+        current = swap;
+    }
+
+    @Override
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return bytes written so far, excluding the index
+     */
+    public long getSize() {
+        return position;
+    }
+
+    /**
+     * Writes the seek index and trailer.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        int keyframes = (frameCount + keyframeInterval - 1) / keyframeInterval;
+        ByteBuffer index = ByteBuffer.allocate(10 * frameCount + Long.BYTES * keyframes + TRAILER_LENGTH)
+                .order(BYTE_ORDER);
+        long last = 0;
+        for (int i = 0; i < frameCount; i++) {
+            XorRunLengthCodec.putVarLong(index, timestamps[i] - last);
+            last = timestamps[i];
+        }
+        for (int k = 0; k < keyframes; k++) {
+            index.putLong(keyframeOffsets[k]);
+        }
+        index.putLong(position)
+                .putInt(frameCount)
+                .putInt(keyframes)
+                .putInt(MAGIC)
+                .putInt(0)
+                .flip();
+        try {
+            writeFully(index);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot finish recording " + file, e);
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.senegas.ledstrip.recording;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+/**
+ * Destination of recorded frames, in capture order.
+ */
+public interface FrameSink extends AutoCloseable {
+
+    /**
+     * @param timestampNanos capture time, not earlier than the previous frame's
+     */
+    void append(long timestampNanos, LedStripState state);
+
+    int getFrameCount();
+
+    @Override
+    void close();
+}
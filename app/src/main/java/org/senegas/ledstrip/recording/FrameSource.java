@@ -0,0 +1,44 @@
+package org.senegas.ledstrip.recording;
+
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+/**
+ * Random-access sequence of recorded frames, each stamped with the time it
+ * was captured. Timestamps never decrease, so frames can be looked up by time.
+ */
+public interface FrameSource extends AutoCloseable {
+
+    int getLedCount();
+
+    int getFrameCount();
+
+    /**
+     * @return capture time of {@code frame} in ns, relative to an arbitrary origin
+     */
+    long getTimestampNanos(int frame);
+
+    /**
+     * Loads {@code frame} into {@code strip}, which must be {@link #getLedCount()} long.
+     */
+    void renderFrame(int frame, LedStrip strip);
+
+    /**
+     * @return the last frame captured at or before {@code timestampNanos}, -1 if none
+     */
+    default int frameAt(long timestampNanos) {
+        int low = 0;
+        int high = getFrameCount() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (getTimestampNanos(mid) <= timestampNanos) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    @Override
+    void close();
+}
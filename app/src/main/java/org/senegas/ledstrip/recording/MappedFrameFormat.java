@@ -0,0 +1,47 @@
+package org.senegas.ledstrip.recording;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout of a mapped recording, little-endian throughout:
+ *
+ * <pre>
+ * header  (32 bytes)  int magic "LEDR", short version, short reserved,
+ *                     int LED count, int frame count, 16 reserved bytes
+ * frames  (repeated)  long timestamp in ns, then one packed 0x00RRGGBB int per LED
+ * </pre>
+ *
+ * Frames have a fixed size, so the position of frame {@code n} is computed
+ * rather than stored. The file is mapped in chunks holding a whole number of
+ * frames, keeping every frame inside one mapping and recordings free of the
+ * 2 GB limit of a single buffer.
+ */
+final class MappedFrameFormat {
+    static final int MAGIC = 0x5244454C; // "LEDR" read little-endian
+    static final short VERSION = 1;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int HEADER_LENGTH = 32;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int LED_COUNT_OFFSET = 8;
+    static final int FRAME_COUNT_OFFSET = 12;
+
+    static final int TIMESTAMP_LENGTH = Long.BYTES;
+    static final long CHUNK_BYTES = 64L << 20;
+
+    private MappedFrameFormat() {
+    }
+
+    static int frameLength(int ledCount) {
+        return TIMESTAMP_LENGTH + ledCount * Integer.BYTES;
+    }
+
+    static int framesPerChunk(int ledCount) {
+        return (int) Math.max(1, CHUNK_BYTES / frameLength(ledCount));
+    }
+
+    static long chunkOffset(int chunk, int ledCount) {
+        return HEADER_LENGTH + (long) chunk * framesPerChunk(ledCount) * frameLength(ledCount);
+    }
+}
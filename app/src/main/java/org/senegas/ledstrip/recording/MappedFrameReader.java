@@ -0,0 +1,134 @@
+package org.senegas.ledstrip.recording;
+
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.senegas.ledstrip.recording.MappedFrameFormat.*;
+
+/**
+ * Reads a recording written by {@link MappedFrameWriter}.
+ *
+ * Chunks are mapped read-only on first access and pixels are loaded into the
+ * strip directly from the mapping, so only the pages being replayed are
+ * resident and nothing is copied onto the heap. Frames appended after the
+ * reader was opened are not seen.
+ */
+public class MappedFrameReader implements FrameSource {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int ledCount;
+    private final int frameCount;
+    private final int frameLength;
+    private final int framesPerChunk;
+    private final MappedByteBuffer[] chunks;
+    private final IntBuffer[] chunkPixels;
+
+    public MappedFrameReader(Path file) {
+        this.file = file;
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open recording " + file, e);
+        }
+        try {
+            if (channel.size() < HEADER_LENGTH) {
+                throw new IllegalArgumentException(file + " is not an LED recording");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH).order(BYTE_ORDER);
+            if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(LED_COUNT_OFFSET) <= 0) {
+                throw new IllegalArgumentException(file + " is not an LED recording");
+            }
+            if (header.getShort(VERSION_OFFSET) != VERSION) {
+                throw new IllegalArgumentException("Unsupported recording version " + header.getShort(VERSION_OFFSET));
+            }
+            this.ledCount = header.getInt(LED_COUNT_OFFSET);
+            this.frameLength = frameLength(ledCount);
+            // A recording cut short may hold fewer complete frames than the header claims
+            long completeFrames = (channel.size() - HEADER_LENGTH) / frameLength;
+            this.frameCount = (int) Math.min(header.getInt(FRAME_COUNT_OFFSET), completeFrames);
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            if (e instanceof IOException io) {
+                throw new UncheckedIOException("Cannot read recording " + file, io);
+            }
+            throw (RuntimeException) e;
+        }
+        this.framesPerChunk = framesPerChunk(ledCount);
+        int chunkCount = (frameCount + framesPerChunk - 1) / framesPerChunk;
+        this.chunks = new MappedByteBuffer[chunkCount];
+        this.chunkPixels = new IntBuffer[chunkCount];
+    }
+
+    @Override
+    public int getLedCount() {
+        return ledCount;
+    }
+
+    @Override
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public long getTimestampNanos(int frame) {
+        return chunk(frame).getLong(offsetInChunk(frame));
+    }
+
+    @Override
+    public void renderFrame(int frame, LedStrip strip) {
+        if (strip.getLength() != ledCount) {
+            throw new IllegalArgumentException("Strip length " + strip.getLength()
+                    + " does not match recording of " + ledCount + " LEDs");
+        }
+        chunk(frame);
+        strip.setPixelsRgb(chunkPixels[frame / framesPerChunk],
+                (offsetInChunk(frame) + TIMESTAMP_LENGTH) / Integer.BYTES);
+    }
+
+    private int offsetInChunk(int frame) {
+        return (frame % framesPerChunk) * frameLength;
+    }
+
+    private MappedByteBuffer chunk(int frame) {
+        if (frame < 0 || frame >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame " + frame + " of " + frameCount);
+        }
+        int index = frame / framesPerChunk;
+        MappedByteBuffer chunk = chunks[index];
+        if (chunk == null) {
+            long offset = chunkOffset(index, ledCount);
+            long length = Math.min((long) framesPerChunk, frameCount - (long) index * framesPerChunk) * frameLength;
+            try {
+                chunk = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read recording " + file, e);
+            }
+            chunk.order(BYTE_ORDER);
+            chunks[index] = chunk;
+            chunkPixels[index] = chunk.asIntBuffer();
+        }
+        return chunk;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close recording " + file, e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.senegas.ledstrip.recording;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.senegas.ledstrip.recording.MappedFrameFormat.*;
+
+/**
+ * Appends frames to a recording file in the {@link MappedFrameFormat} layout.
+ *
+ * Frames are written straight into a memory mapping of the current chunk,
+ * which the OS flushes in the background; the frame count in the header is
+ * updated after every frame, so a reader opening the file sees only complete
+ * frames. Not thread-safe.
+ */
+public class MappedFrameWriter implements FrameSink {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int ledCount;
+    private final int frameLength;
+    private final int framesPerChunk;
+    private final MappedByteBuffer header;
+
+    private MappedByteBuffer chunk;
+    private IntBuffer chunkPixels;
+    private int frameCount = 0;
+    private long lastTimestampNanos = Long.MIN_VALUE;
+    private boolean closed = false;
+
+    /**
+     * Creates {@code file}, replacing any existing content.
+     */
+    public MappedFrameWriter(Path file, int ledCount) {
+        if (ledCount <= 0) {
+            throw new IllegalArgumentException("LED count must be positive");
+        }
+        this.file = file;
+        this.ledCount = ledCount;
+        this.frameLength = frameLength(ledCount);
+        this.framesPerChunk = framesPerChunk(ledCount);
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_LENGTH);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create recording " + file, e);
+        }
+        header.order(BYTE_ORDER)
+                .putInt(MAGIC_OFFSET, MAGIC)
+                .putShort(VERSION_OFFSET, VERSION)
+                .putInt(LED_COUNT_OFFSET, ledCount)
+                .putInt(FRAME_COUNT_OFFSET, 0);
+    }
+
+    @Override
+    public void append(long timestampNanos, LedStripState state) {
+        if (closed) {
+            throw new IllegalStateException("Recording is closed");
+        }
+        if (state.getLength() != ledCount) {
+            throw new IllegalArgumentException("State length " + state.getLength()
+                    + " does not match " + ledCount + " LEDs");
+        }
+        if (timestampNanos < lastTimestampNanos) {
+            throw new IllegalArgumentException("Timestamps must not go backwards");
+        }
+
+        int inChunk = frameCount % framesPerChunk;
+        if (inChunk == 0) {
+            mapChunk(frameCount / framesPerChunk);
+        }
+        int offset = inChunk * frameLength;
+        chunk.putLong(offset, timestampNanos);
+        state.copyTo(chunkPixels, (offset + TIMESTAMP_LENGTH) / Integer.BYTES);
+
+        lastTimestampNanos = timestampNanos;
+        frameCount++;
+        header.putInt(FRAME_COUNT_OFFSET, frameCount);
+    }
+
+    private void mapChunk(int index) {
+        try {
+            // Mapping past the end of the file grows it
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkOffset(index, ledCount),
+                    (long) framesPerChunk * frameLength);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot extend recording " + file, e);
+        }
+        chunk.order(BYTE_ORDER);
+        chunkPixels = chunk.asIntBuffer();
+    }
+
+    @Override
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Flushes the mappings and trims the unused tail of the last chunk.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            header.force();
+            if (chunk != null) {
+                chunk.force();
+            }
+            chunk = null;
+            chunkPixels = null;
+            channel.truncate(HEADER_LENGTH + (long) frameCount * frameLength);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot finish recording " + file, e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.senegas.ledstrip.recording;
+
+import org.senegas.ledstrip.domain.led.LedStripState;
+import org.senegas.ledstrip.hardware.RecordingAdapter;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * {@link RecordingAdapter} that also appends every frame it receives to a
+ * recording, stamped with the time since the first frame, for later playback
+ * through a {@link FrameSource} and {@link ReplayEffect}. Records to a
+ * memory-mapped file by default, or to any {@link FrameSink} such as a
+ * {@link CompressedFrameWriter}. Frames without changes are not recorded:
+ * replay holds the previous frame until the next one anyway.
+ */
+public class MappedRecordingAdapter extends RecordingAdapter implements AutoCloseable {
+    private final FrameSink writer;
+    private long originNanos;
+
+    public MappedRecordingAdapter(Path file, int ledCount) {
+        this(new MappedFrameWriter(file, ledCount));
+    }
+
+    public MappedRecordingAdapter(FrameSink sink) {
+        this.writer = Objects.requireNonNull(sink);
+    }
+
+    @Override
+    public synchronized void apply(LedStripState state) {
+        super.apply(state);
+        long now = System.nanoTime();
+        if (writer.getFrameCount() == 0) {
+            originNanos = now;
+        }
+        writer.append(now - originNanos, state);
+    }
+
+    @Override
+    public synchronized void applyDelta(LedStripState state) {
+        if (state.hasChanges() || writer.getFrameCount() == 0) {
+            apply(state);
+        }
+    }
+
+    public synchronized int getRecordedFrames() {
+        return writer.getFrameCount();
+    }
+
+    @Override
+    public synchronized void close() {
+        writer.close();
+    }
+}
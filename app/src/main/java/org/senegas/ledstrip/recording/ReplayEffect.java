@@ -0,0 +1,92 @@
+package org.senegas.ledstrip.recording;
+
+import org.senegas.ledstrip.domain.effect.AbstractEffect;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.util.Objects;
+
+/**
+ * Plays a recording back with its original timing: at effect time {@code t}
+ * the strip shows the last frame captured at or before {@code t} after the
+ * first one. The effect reports the next frame's capture time to deadline
+ * schedulers, so playback costs nothing between recorded frames.
+ */
+public class ReplayEffect extends AbstractEffect {
+    private final FrameSource source;
+    private final boolean loop;
+    private int shownFrame = -1;
+
+    /**
+     * @param loop restart from the first frame after the last one, instead of holding it
+     */
+    public ReplayEffect(FrameSource source, boolean loop) {
+        super("Replay");
+        this.source = Objects.requireNonNull(source);
+        this.loop = loop;
+    }
+
+    @Override
+    public boolean apply(LedStrip strip, long timestampMillis) {
+        return applyNanos(strip, timestampMillis * NANOS_PER_MILLI);
+    }
+
+    @Override
+    public boolean applyNanos(LedStrip strip, long timestampNanos) {
+        if (source.getFrameCount() == 0) {
+            return false;
+        }
+        int frame = Math.max(0, source.frameAt(recordingTime(timestampNanos)));
+        if (frame == shownFrame) {
+            // Still on screen: skip decoding it again between recorded frames
+            return false;
+        }
+        source.renderFrame(frame, strip);
+        shownFrame = frame;
+        return true;
+    }
+
+    @Override
+    public long nextUpdateNanos(long timestampNanos) {
+        int count = source.getFrameCount();
+        if (count < 2) {
+            return Long.MAX_VALUE;
+        }
+        long position = recordingTime(timestampNanos);
+        int frame = source.frameAt(position);
+        if (frame + 1 < count) {
+            return timestampNanos + source.getTimestampNanos(frame + 1) - position;
+        }
+        return loop ? timestampNanos + loopLengthNanos() - (position - source.getTimestampNanos(0))
+                : Long.MAX_VALUE;
+    }
+
+    @Override
+    public long nextUpdateMillis(long timestampMillis) {
+        long next = nextUpdateNanos(timestampMillis * NANOS_PER_MILLI);
+        return next == Long.MAX_VALUE ? Long.MAX_VALUE : next / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        shownFrame = -1;
+    }
+
+    /* Maps effect time onto the recording's own timestamps */
+    private long recordingTime(long timestampNanos) {
+        long elapsed = timestampNanos;
+        if (loop) {
+            long length = loopLengthNanos();
+            if (length > 0) {
+                elapsed %= length;
+            }
+        }
+        return source.getTimestampNanos(0) + elapsed;
+    }
+
+    /* Recorded span plus one average frame interval, so the last frame is held as long as the others */
+    private long loopLengthNanos() {
+        int count = source.getFrameCount();
+        long span = source.getTimestampNanos(count - 1) - source.getTimestampNanos(0);
+        return count > 1 ? span + span / (count - 1) : 0;
+    }
+}
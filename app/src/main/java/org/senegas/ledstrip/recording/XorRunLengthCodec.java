@@ -0,0 +1,113 @@
+package org.senegas.ledstrip.recording;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Run-length coding of packed 24-bit pixel values.
+ *
+ * A frame is a sequence of groups, each starting with a varint {@code h}:
+ * an even {@code h} is a run of {@code h / 2} copies of the 3-byte value that
+ * follows, an odd {@code h} is {@code h / 2} literal 3-byte values. Decoding
+ * XORs the values into the target, so coding a frame XORed with its
+ * predecessor turns unchanged pixels into long zero runs.
+ */
+final class XorRunLengthCodec {
+
+    private XorRunLengthCodec() {
+    }
+
+    /**
+     * @return upper bound of the encoded size of {@code length} values
+     */
+    static int maxEncodedLength(int length) {
+        // A literal costs 3 bytes per value, a run of two 4; plus one varint per group
+        return 4 * length + 16;
+    }
+
+    static void encode(int[] values, int length, ByteBuffer out) {
+        int i = 0;
+        while (i < length) {
+            int value = values[i];
+            int run = 1;
+            while (i + run < length && values[i + run] == value) {
+                run++;
+            }
+            if (run > 1) {
+                putVarint(out, run << 1);
+                putRgb(out, value);
+                i += run;
+                continue;
+            }
+            // Extend the literal up to the start of the next run
+            int start = i++;
+            while (i < length && (i + 1 == length || values[i] != values[i + 1])) {
+                i++;
+            }
+            putVarint(out, (i - start) << 1 | 1);
+            for (int k = start; k < i; k++) {
+                putRgb(out, values[k]);
+            }
+        }
+    }
+
+    static void decodeXor(ByteBuffer in, int[] target, int length) {
+        int i = 0;
+        while (i < length) {
+            int header = getVarint(in);
+            int count = header >>> 1;
+            if (count == 0 || count > length - i) {
+                throw new IllegalStateException("Corrupt frame data");
+            }
+            if ((header & 1) == 0) {
+                int value = getRgb(in);
+                if (value != 0) {
+                    for (int end = i + count; i < end; i++) {
+                        target[i] ^= value;
+                    }
+                } else {
+                    i += count;
+                }
+            } else {
+                for (int end = i + count; i < end; i++) {
+                    target[i] ^= getRgb(in);
+                }
+            }
+        }
+    }
+
+    private static void putRgb(ByteBuffer out, int rgb) {
+        out.put((byte) (rgb >>> 16)).put((byte) (rgb >>> 8)).put((byte) rgb);
+    }
+
+    private static int getRgb(ByteBuffer in) {
+        return (in.get() & 0xFF) << 16 | (in.get() & 0xFF) << 8 | in.get() & 0xFF;
+    }
+
+    static void putVarint(ByteBuffer out, int value) {
+        putVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    static int getVarint(ByteBuffer in) {
+        return (int) getVarLong(in);
+    }
+
+    static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Corrupt varint");
+    }
+}
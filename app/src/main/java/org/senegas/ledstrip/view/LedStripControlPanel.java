@@ -11,11 +11,13 @@ import java.awt.event.ActionListener;
 import java.util.List;
 
 public class LedStripControlPanel extends JPanel {
+    private static final long EFFECT_CROSSFADE_MILLIS = 1000;
+
     private final LedStripController controller;
     private final AnimationEngine animationEngine;
-    private final EffectRegistry effectRegistry;
+    private final ServiceLoaderEffectRegistry effectRegistry;
 
-    private JComboBox<AbstractEffect> effectComboBox;
+    private JComboBox<String> effectComboBox;
     private final JButton startStopButton = new JButton("Start");
     private boolean running = false;
 
@@ -26,10 +28,10 @@ public class LedStripControlPanel extends JPanel {
 
         this.controller = controller;
 
-        this.effectRegistry = new DefaultEffectRegistry();
+        this.effectRegistry = new ServiceLoaderEffectRegistry();
 
         this.animationEngine =
-                new AnimationEngine(this.controller, 40);
+                new AnimationEngine(this.controller, 40, AnimationEngine.Scheduling.DEADLINE);
 
         setLayout(new FlowLayout(FlowLayout.LEFT, 10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
@@ -53,7 +55,7 @@ public class LedStripControlPanel extends JPanel {
         JLabel lblIndex = new JLabel("Index:");
         add(lblIndex);
 
-        int ledCount = controller.getSnapshot().getLength();
+        int ledCount = controller.getLength();
         SpinnerNumberModel indexModel = new SpinnerNumberModel(0, 0, ledCount - 1, 1);
         JSpinner spinnerIndex = new JSpinner(indexModel);
         ((JSpinner.DefaultEditor) spinnerIndex.getEditor()).getTextField().setColumns(3);
@@ -81,14 +83,21 @@ public class LedStripControlPanel extends JPanel {
         startStopButton.addActionListener(e -> toggleAnimation());
         add(startStopButton);
 
+        // Effects are only created once selected
         this.effectComboBox = new JComboBox<>(
-                effectRegistry.availableEffects().toArray(AbstractEffect[]::new)
+                effectRegistry.effectNames().toArray(String[]::new)
         );
+        this.effectComboBox.addActionListener(e -> {
+            if (running) {
+                animationEngine.switchEffect(selectedEffect(), EFFECT_CROSSFADE_MILLIS);
+            }
+        });
         add(this.effectComboBox);
     }
 
     private AbstractEffect selectedEffect() {
-        return (AbstractEffect) effectComboBox.getSelectedItem();
+        return effectRegistry.effect((String) effectComboBox.getSelectedItem(), EffectParameters.NONE,
+                controller.getLength());
     }
 
     private void toggleAnimation() {
@@ -113,7 +122,8 @@ public class LedStripControlPanel extends JPanel {
     }
 
     private void showColorChooserForLed(int index) {
-        RgbColor currentColor = controller.getSnapshot().getColorAt(index);
+        // The live strip belongs to the render thread: start from what is shown
+        RgbColor currentColor = controller.getPublishedColor(index);
 
         java.awt.Color initialColor = new java.awt.Color(
                 currentColor.getRed(),
@@ -176,7 +186,7 @@ public class LedStripControlPanel extends JPanel {
     }
 
     private void applyRainbowPattern() {
-        int ledCount = controller.getSnapshot().getLength();
+        int ledCount = controller.getLength();
 
         for (int i = 0; i < ledCount; i++) {
             float hue = (float) i / ledCount;
@@ -191,7 +201,7 @@ public class LedStripControlPanel extends JPanel {
     }
 
     private void applyGradientPattern() {
-        int ledCount = controller.getSnapshot().getLength();
+        int ledCount = controller.getLength();
 
         for (int i = 0; i < ledCount; i++) {
             double ratio = (double) i / (ledCount - 1);
@@ -201,7 +211,7 @@ public class LedStripControlPanel extends JPanel {
     }
 
     private void applyAlternatePattern() {
-        int ledCount = controller.getSnapshot().getLength();
+        int ledCount = controller.getLength();
 
         for (int i = 0; i < ledCount; i++) {
             RgbColor color = (i % 2 == 0) ? RgbColor.RED : RgbColor.BLUE;
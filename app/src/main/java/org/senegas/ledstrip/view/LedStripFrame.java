@@ -3,7 +3,7 @@ package org.senegas.ledstrip.view;
 import org.senegas.ledstrip.domain.color.RgbColor;
 import org.senegas.ledstrip.domain.led.LedStrip;
 import org.senegas.ledstrip.domain.led.LedStripController;
-import org.senegas.ledstrip.hardware.CompositeLedStripHardwareAdapter;
+import org.senegas.ledstrip.hardware.AsyncCompositeLedStripHardwareAdapter;
 import org.senegas.ledstrip.hardware.ConsoleLedStripHardwareAdapter;
 import org.senegas.ledstrip.hardware.LedStripHardwareAdapter;
 import org.senegas.ledstrip.hardware.SwingLedStripHardwareAdapter;
@@ -18,18 +18,25 @@ import java.util.logging.Logger;
 public class LedStripFrame extends JFrame {
     private static final Logger LOGGER = Logger.getLogger(LedStripFrame.class.getName());
 
+    // Past this many LEDs the vector renderer can no longer keep up with the animation
+    private static final int SPRITE_RENDERING_THRESHOLD = 100;
+
     public LedStripFrame(LedStrip strip) {
         super("ledstrip");
 
         setLayout(new BorderLayout());
 
         SwingLedStripHardwareAdapter visualizer =
-                new SwingLedStripHardwareAdapter(strip.getLength());
+                new SwingLedStripHardwareAdapter(strip.getLength(),
+                        strip.getLength() > SPRITE_RENDERING_THRESHOLD
+                                ? SwingLedStripHardwareAdapter.RenderMode.SPRITES
+                                : SwingLedStripHardwareAdapter.RenderMode.VECTOR);
 
         LedStripHardwareAdapter console = new ConsoleLedStripHardwareAdapter();
 
-        CompositeLedStripHardwareAdapter composite =
-                new CompositeLedStripHardwareAdapter(visualizer, console);
+        // Async so the console output cannot hold back the visualizer or the animation
+        AsyncCompositeLedStripHardwareAdapter composite =
+                new AsyncCompositeLedStripHardwareAdapter(visualizer, console);
 
         LedStripController controller = new LedStripController(strip, composite);
 
@@ -46,6 +53,7 @@ public class LedStripFrame extends JFrame {
             @Override
             public void windowClosing(WindowEvent e) {
                 controls.shutdown();
+                composite.close();
             }
         });
     }
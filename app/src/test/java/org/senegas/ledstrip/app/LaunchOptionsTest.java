@@ -0,0 +1,66 @@
+package org.senegas.ledstrip.app;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.app.animation.AnimationEngine;
+import org.senegas.ledstrip.hardware.ColorOrder;
+import org.senegas.ledstrip.hardware.NoopAdapter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaunchOptionsTest {
+
+    @Test void parsesArgumentsOverConfigFile() throws Exception {
+        Path config = Files.createTempFile("ledstrip", ".properties");
+        try {
+            Files.writeString(config, "headless=true\nleds=144\nfps=100\neffect=Breath\n");
+            LaunchOptions options = LaunchOptions.parse("--config", config.toString(), "--fps=25",
+                    "--output", "none", "--output", "ddp:10.0.0.2,e131:10.0.0.3:5569",
+                    "--scheduling", "deadline", "--color-order", "grb");
+
+            assertTrue(options.headless());
+            assertEquals(144, options.ledCount());
+            assertEquals("Breath", options.effect());
+            assertEquals(25, options.fps());
+            assertEquals(40, options.framePeriodMillis());
+            assertEquals(AnimationEngine.Scheduling.DEADLINE, options.scheduling());
+            assertEquals(List.of("none", "ddp:10.0.0.2", "e131:10.0.0.3:5569"), options.outputs());
+            assertEquals(ColorOrder.GRB, options.colorOrder());
+        } finally {
+            Files.deleteIfExists(config);
+        }
+    }
+
+    @Test void rejectsInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> LaunchOptions.parse("--leds"));
+        assertThrows(IllegalArgumentException.class, () -> LaunchOptions.parse("--leds", "many"));
+        assertThrows(IllegalArgumentException.class, () -> LaunchOptions.parse("--frobnicate"));
+        assertThrows(IllegalArgumentException.class, () -> LaunchOptions.parse("--scheduling", "sometimes"));
+        assertThrows(IllegalArgumentException.class, () -> LaunchOptions.parse("--fps", "0"));
+    }
+
+    @Test void createsOutputsAndFindsEffects() {
+        assertInstanceOf(NoopAdapter.class, HeadlessLedStripApp.createOutput("none", 8, ColorOrder.RGB));
+        assertThrows(IllegalArgumentException.class, () -> HeadlessLedStripApp.createOutput("ddp", 8, ColorOrder.RGB));
+        assertThrows(IllegalArgumentException.class, () -> HeadlessLedStripApp.createOutput("dmx:1", 8, ColorOrder.RGB));
+        assertEquals("Rainbow", HeadlessLedStripApp.findEffect("rainbow", 8).getName());
+        assertThrows(IllegalArgumentException.class, () -> HeadlessLedStripApp.findEffect("Fireworks", 8));
+    }
+
+    @Test void unknownEffectIsRejectedBeforeAnyOutputIsOpened() throws Exception {
+        Path dir = Files.createTempDirectory("ledstrip");
+        Path recording = dir.resolve("frames.rec");
+        try {
+            LaunchOptions options = LaunchOptions.parse("--headless", "--leds", "8", "--effect", "Fireworks",
+                    "--output", "record:" + recording);
+            assertThrows(IllegalArgumentException.class, () -> new HeadlessLedStripApp(options));
+            assertFalse(Files.exists(recording));
+        } finally {
+            Files.deleteIfExists(recording);
+            Files.delete(dir);
+        }
+    }
+}
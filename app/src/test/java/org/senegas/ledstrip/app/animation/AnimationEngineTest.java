@@ -0,0 +1,366 @@
+package org.senegas.ledstrip.app.animation;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.color.PackedRgb;
+import org.senegas.ledstrip.domain.effect.AbstractEffect;
+import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.domain.led.LedStripController;
+import org.senegas.ledstrip.domain.led.LedStripState;
+import org.senegas.ledstrip.hardware.RecordingAdapter;
+import org.senegas.ledstrip.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnimationEngineTest {
+    private static final long MS = 1_000_000L;
+
+    /* Lights LED 0 with a new color per frame (or fills a set color), records effect times and can burn virtual time */
+    static final class ProbeEffect extends AbstractEffect {
+        final List<Long> times = new ArrayList<>();
+        private final VirtualFrameClock clock;
+        private final LongUnaryOperator nextUpdate;
+        long renderNanos = 0;
+        int fill = -1;
+        boolean failing = false;
+        int resets = 0;
+
+        ProbeEffect(String name, VirtualFrameClock clock, LongUnaryOperator nextUpdate) {
+            super(name);
+            this.clock = clock;
+            this.nextUpdate = nextUpdate;
+        }
+
+        ProbeEffect(VirtualFrameClock clock) {
+            this("Probe", clock, t -> t);
+        }
+
+        @Override
+        public boolean apply(LedStrip strip, long timestampMillis) {
+            return applyNanos(strip, timestampMillis * MS);
+        }
+
+        @Override
+        public boolean applyNanos(LedStrip strip, long timestampNanos) {
+            times.add(timestampNanos);
+            if (failing) {
+                throw new IllegalStateException("broken effect");
+            }
+            if (fill >= 0) {
+                strip.fillRgb(fill);
+            } else {
+                strip.setPixelRgb(0, times.size());
+            }
+            if (renderNanos > 0) {
+                clock.advance(renderNanos, TimeUnit.NANOSECONDS);
+            }
+            return true;
+        }
+
+        @Override
+        public long nextUpdateNanos(long timestampNanos) {
+            return nextUpdate.applyAsLong(timestampNanos);
+        }
+
+        @Override
+        public void reset() {
+            resets++;
+        }
+    }
+
+    private final VirtualFrameClock clock = new VirtualFrameClock();
+    private final ManualScheduler scheduler = new ManualScheduler(clock);
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final RecordingAdapter adapter = new RecordingAdapter();
+    private final LedStripController controller = new LedStripController(LedStrip.ofLength(4), adapter);
+
+    private AnimationEngine engine(AnimationEngine.Scheduling scheduling) {
+        return new AnimationEngine(controller, 10, scheduling, clock, metrics, scheduler);
+    }
+
+    private ProbeEffect solid(String name, int color) {
+        ProbeEffect effect = new ProbeEffect(name, clock, t -> t);
+        effect.fill = color;
+        return effect;
+    }
+
+    private int shown() {
+        return adapter.last().orElseThrow().rgbAt(1);
+    }
+
+    @Test void fixedRateRendersEveryPeriod() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.FIXED_RATE);
+        ProbeEffect effect = new ProbeEffect(clock);
+        engine.setCurrentEffect(effect);
+        engine.start();
+        assertEquals(1, effect.resets);
+
+        for (int i = 0; i < 4; i++) {
+            scheduler.runNext();
+        }
+        assertEquals(List.of(0L, 10 * MS, 20 * MS, 30 * MS), effect.times);
+        assertEquals(40 * MS, scheduler.nextDueNanos());
+        assertEquals(4, adapter.last().orElseThrow().rgbAt(0));
+
+        FrameStats stats = engine.getFrameStats();
+        assertEquals(4, stats.getFrameCount());
+        assertEquals(0, stats.getSkippedFrames());
+        assertEquals(0, stats.getOverrunCount());
+    }
+
+    @Test void fixedRateSkipsMissedDeadlines() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.FIXED_RATE);
+        ProbeEffect effect = new ProbeEffect(clock);
+        engine.setCurrentEffect(effect);
+        engine.start();
+
+        effect.renderNanos = 35 * MS;
+        scheduler.runNext();
+        effect.renderNanos = 0;
+        // Rendering ran until 35 ms: deadlines at 10, 20 and 30 ms are dropped
+        assertEquals(40 * MS, scheduler.nextDueNanos());
+        scheduler.runNext();
+        assertEquals(List.of(0L, 40 * MS), effect.times);
+
+        FrameStats stats = engine.getFrameStats();
+        assertEquals(3, stats.getSkippedFrames());
+        assertEquals(1, stats.getOverrunCount());
+        assertEquals(35 * MS, stats.getMaxFrameNanos());
+    }
+
+    @Test void latenessIsMeasuredFromTheDeadline() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.FIXED_RATE);
+        engine.setCurrentEffect(new ProbeEffect(clock));
+        engine.start();
+        scheduler.runNext();
+        scheduler.runNext(3 * MS);
+        // A late frame does not shift the following deadlines
+        assertEquals(20 * MS, scheduler.nextDueNanos());
+        scheduler.runNext(1 * MS);
+
+        FrameStats stats = engine.getFrameStats();
+        assertEquals(3 * MS, stats.getMaxLatenessNanos());
+        assertEquals(1 * MS, stats.getLastLatenessNanos());
+        assertEquals(4 * MS / 3, stats.getMeanLatenessNanos());
+    }
+
+    @Test void deadlineSleepsUntilTheEffectIsDue() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.DEADLINE);
+        ProbeEffect effect = new ProbeEffect("Probe", clock, t -> t + 250 * MS);
+        engine.setCurrentEffect(effect);
+        engine.start();
+
+        scheduler.runNext();
+        assertEquals(250 * MS, scheduler.nextDueNanos());
+        scheduler.runNext();
+        assertEquals(List.of(0L, 250 * MS), effect.times);
+        assertEquals(0, engine.getFrameStats().getSkippedFrames());
+    }
+
+    @Test void deadlineIsClampedToFramePeriodAndMaxIdle() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.DEADLINE);
+        ProbeEffect eager = new ProbeEffect("Eager", clock, t -> t + MS);
+        engine.setCurrentEffect(eager);
+        engine.start();
+        scheduler.runNext();
+        assertEquals(10 * MS, scheduler.nextDueNanos());
+        engine.stop();
+        // Hands the strip back
+        scheduler.runNext();
+
+        ProbeEffect lazy = new ProbeEffect("Lazy", clock, t -> t + 60_000 * MS);
+        engine.setCurrentEffect(lazy);
+        engine.start();
+        long started = clock.nanoTime();
+        scheduler.runNext();
+        assertEquals(started + AnimationEngine.MAX_IDLE_MILLIS * MS, scheduler.nextDueNanos());
+    }
+
+    @Test void idleEffectSleepsForMaxIdle() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.DEADLINE);
+        ProbeEffect idle = new ProbeEffect("Idle", clock, t -> Long.MAX_VALUE);
+        engine.setCurrentEffect(idle);
+        // A non-zero start time is what made startNanos + Long.MAX_VALUE overflow
+        clock.advanceMillis(5_000);
+        engine.start();
+        scheduler.runNext();
+        long frameStart = clock.nanoTime();
+        assertEquals(frameStart + AnimationEngine.MAX_IDLE_MILLIS * MS, scheduler.nextDueNanos());
+    }
+
+    @Test void failingEffectDoesNotStopTheEngine() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.DEADLINE);
+        ProbeEffect effect = new ProbeEffect("Failing", clock, t -> t + 500 * MS);
+        effect.failing = true;
+        engine.setCurrentEffect(effect);
+        engine.start();
+        scheduler.runNext();
+        scheduler.runNext();
+        assertEquals(2, effect.times.size());
+        assertEquals(1, scheduler.pendingTasks());
+
+        // Edits still wake the engine and are published despite the effect failing
+        controller.setPixelRgb(1, 0xABCDEF);
+        assertEquals(clock.nanoTime(), scheduler.nextDueNanos());
+        scheduler.runNext();
+        assertEquals(0xABCDEF, adapter.last().orElseThrow().rgbAt(1));
+        assertEquals(3, effect.times.size());
+    }
+
+    @Test void framesAreRecordedInTheEnginesRegistry() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.FIXED_RATE);
+        engine.setCurrentEffect(new ProbeEffect(clock));
+        engine.start();
+        for (int i = 0; i < 3; i++) {
+            scheduler.runNext();
+        }
+        assertEquals(3, metrics.snapshot().histograms().get("engine.frame").count());
+        assertEquals(3, metrics.snapshot().histograms().get("engine.lateness").count());
+    }
+
+    @Test void stopCancelsPendingFrames() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.FIXED_RATE);
+        ProbeEffect effect = new ProbeEffect(clock);
+        engine.setCurrentEffect(effect);
+        engine.start();
+        scheduler.runNext();
+        engine.stop();
+        while (scheduler.runNext()) {
+            // Drain whatever stop() left behind
+        }
+        assertEquals(1, effect.times.size());
+    }
+
+    @Test void crossfadeBlendsThenSettlesOnIncoming() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.FIXED_RATE);
+        ProbeEffect red = solid("Red", 0xFF0000);
+        ProbeEffect blue = solid("Blue", 0x0000FF);
+        engine.setCurrentEffect(red);
+        engine.start();
+        scheduler.runNext();
+
+        clock.advanceMillis(5);
+        engine.switchEffect(blue, 40);
+        // The transition starts right away rather than on the next deadline
+        assertEquals(clock.nanoTime(), scheduler.nextDueNanos());
+        scheduler.runNext();
+        assertEquals(1, blue.resets);
+        assertEquals(0xFF0000, shown());
+
+        scheduler.runNext();
+        assertEquals(PackedRgb.blend8(0xFF0000, 0x0000FF, PackedRgb.MAX_8 / 4), shown());
+        for (int i = 0; i < 3; i++) {
+            scheduler.runNext();
+        }
+        assertEquals(0x0000FF, shown());
+
+        // Settled: only the incoming effect renders from now on
+        int redFrames = red.times.size();
+        scheduler.runNext();
+        assertEquals(redFrames, red.times.size());
+        assertEquals(0x0000FF, shown());
+    }
+
+    @Test void switchingBackDuringCrossfadeReversesIt() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.FIXED_RATE);
+        ProbeEffect red = solid("Red", 0xFF0000);
+        ProbeEffect blue = solid("Blue", 0x0000FF);
+        engine.setCurrentEffect(red);
+        engine.start();
+        scheduler.runNext();
+        engine.switchEffect(blue, 40);
+        scheduler.runNext();
+        scheduler.runNext();
+        int blended = shown();
+
+        engine.switchEffect(red, 40);
+        int redFrames = red.times.size();
+        scheduler.runNext();
+        // Rendered once per frame: it is not nested as both sides of the transition
+        assertEquals(redFrames + 1, red.times.size());
+        // Picks up from the current blend (up to rounding), without restarting the effect being faded back in
+        assertEquals(blended >> 16, shown() >> 16, 1.0);
+        assertEquals(blended & 0xFF, shown() & 0xFF, 1.0);
+        assertEquals(1, red.resets);
+
+        scheduler.runNext();
+        assertEquals(0xFF0000, shown());
+        int blueFrames = blue.times.size();
+        scheduler.runNext();
+        assertEquals(blueFrames, blue.times.size());
+        assertEquals(0xFF0000, shown());
+    }
+
+    @Test void switchingToAnEffectNestedInTheTransitionCutsToIt() {
+        AnimationEngine engine = engine(AnimationEngine.Scheduling.FIXED_RATE);
+        ProbeEffect red = solid("Red", 0xFF0000);
+        ProbeEffect green = solid("Green", 0x00FF00);
+        ProbeEffect blue = solid("Blue", 0x0000FF);
+        engine.setCurrentEffect(red);
+        engine.start();
+        scheduler.runNext();
+        engine.switchEffect(green, 40);
+        scheduler.runNext();
+        engine.switchEffect(blue, 40);
+        scheduler.runNext();
+
+        engine.switchEffect(red, 40);
+        scheduler.runNext();
+        assertEquals(2, red.resets);
+        assertEquals(0xFF0000, shown());
+        int others = green.times.size() + blue.times.size();
+        scheduler.runNext();
+        assertEquals(others, green.times.size() + blue.times.size());
+    }
+
+    /* Blocks in its first frame until released, then lights LED 0 */
+    static final class SlowEffect extends AbstractEffect {
+        final CountDownLatch rendering = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+
+        SlowEffect() {
+            super("Slow");
+        }
+
+        @Override
+        public boolean apply(LedStrip strip, long timestampMillis) {
+            rendering.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            strip.setPixelRgb(0, 0x123456);
+            return true;
+        }
+    }
+
+    @Test void stopMidFrameLeavesTheStripToTheRenderThreadUntilTheFrameEnds() throws InterruptedException {
+        SlowEffect slow = new SlowEffect();
+        AnimationEngine engine = new AnimationEngine(controller, 10, AnimationEngine.Scheduling.FIXED_RATE,
+                FrameClock.system(), metrics);
+        engine.setCurrentEffect(slow);
+        engine.start();
+        assertTrue(slow.rendering.await(5, TimeUnit.SECONDS));
+
+        engine.stop();
+        controller.setPixelRgb(1, 0xABCDEF);
+        // Not applied from this thread while the frame is still rendering
+        assertTrue(adapter.last().isEmpty());
+        assertTrue(controller.hasPendingCommands());
+
+        slow.finish.countDown();
+        engine.close();
+        LedStripState shown = adapter.last().orElseThrow();
+        assertEquals(0x123456, shown.rgbAt(0));
+        assertEquals(0xABCDEF, shown.rgbAt(1));
+        // Handed back: further edits apply right away
+        controller.setPixelRgb(2, 0x0000FF);
+        assertEquals(0x0000FF, adapter.last().orElseThrow().rgbAt(2));
+    }
+}
@@ -0,0 +1,173 @@
+package org.senegas.ledstrip.app.animation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/* Scheduler on a virtual clock whose tasks only run when the test asks, in due order */
+final class ManualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    private final VirtualFrameClock clock;
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+    private long sequence;
+    private boolean shutdown;
+
+    ManualScheduler(VirtualFrameClock clock) {
+        this.clock = clock;
+    }
+
+    private final class Task implements ScheduledFuture<Object> {
+        private final long dueNanos;
+        private final long order = sequence++;
+        private final Runnable action;
+        private boolean cancelled;
+        private boolean done;
+
+        private Task(long dueNanos, Runnable action) {
+            this.dueNanos = dueNanos;
+            this.action = action;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - clock.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Task task = (Task) other;
+            int byDue = Long.compare(dueNanos, task.dueNanos);
+            return byDue != 0 ? byDue : Long.compare(order, task.order);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (done) {
+                return false;
+            }
+            cancelled = true;
+            return tasks.remove(this);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done || cancelled;
+        }
+
+        @Override
+        public Object get() {
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            return null;
+        }
+    }
+
+    /**
+     * Advances the clock to the earliest task, plus {@code lateNanos}, and runs it.
+     * @return false if nothing is scheduled
+     */
+    boolean runNext(long lateNanos) {
+        Task task = tasks.poll();
+        if (task == null) {
+            return false;
+        }
+        long wait = task.dueNanos - clock.nanoTime();
+        clock.advance(Math.max(0, wait) + lateNanos, TimeUnit.NANOSECONDS);
+        task.done = true;
+        task.action.run();
+        return true;
+    }
+
+    boolean runNext() {
+        return runNext(0);
+    }
+
+    /**
+     * @return virtual time the earliest task is due at
+     */
+    long nextDueNanos() {
+        Task task = tasks.peek();
+        if (task == null) {
+            throw new IllegalStateException("Nothing scheduled");
+        }
+        return task.dueNanos;
+    }
+
+    int pendingTasks() {
+        return tasks.size();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        if (shutdown) {
+            throw new java.util.concurrent.RejectedExecutionException("Shut down");
+        }
+        Task task = new Task(clock.nanoTime() + unit.toNanos(Math.max(0, delay)), command);
+        tasks.add(task);
+        return task;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<>();
+        for (Task task : tasks) {
+            pending.add(task.action);
+        }
+        tasks.clear();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && tasks.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+}
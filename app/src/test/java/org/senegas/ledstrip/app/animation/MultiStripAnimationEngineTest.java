@@ -0,0 +1,118 @@
+package org.senegas.ledstrip.app.animation;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.effect.AbstractEffect;
+import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.domain.led.LedStripController;
+import org.senegas.ledstrip.domain.led.LedStripState;
+import org.senegas.ledstrip.hardware.RecordingAdapter;
+import org.senegas.ledstrip.metrics.MetricsRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiStripAnimationEngineTest {
+    private static final long MS = 1_000_000L;
+
+    /* Lights LED 0 with the frame count, running a hook inside each render */
+    private static final class CountingEffect extends AbstractEffect {
+        final AtomicInteger frames = new AtomicInteger();
+        volatile Runnable onRender = () -> {
+        };
+
+        CountingEffect() {
+            super("Counting");
+        }
+
+        @Override
+        public boolean apply(LedStrip strip, long timestampMillis) {
+            return applyNanos(strip, timestampMillis * MS);
+        }
+
+        @Override
+        public boolean applyNanos(LedStrip strip, long timestampNanos) {
+            onRender.run();
+            strip.setPixelRgb(0, frames.incrementAndGet());
+            return true;
+        }
+    }
+
+    private final VirtualFrameClock clock = new VirtualFrameClock();
+    private final ManualScheduler scheduler = new ManualScheduler(clock);
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    private MultiStripAnimationEngine engine() {
+        return new MultiStripAnimationEngine(10, 2, clock, metrics, scheduler);
+    }
+
+    @Test void failingEffectDoesNotStopOtherStripsOrTicks() {
+        RecordingAdapter healthy = new RecordingAdapter();
+        CountingEffect counting = new CountingEffect();
+        CountingEffect failing = new CountingEffect();
+        failing.onRender = () -> {
+            throw new IllegalStateException("broken effect");
+        };
+        try (MultiStripAnimationEngine engine = engine()) {
+            engine.addStrip(new LedStripController(LedStrip.ofLength(4), healthy), counting);
+            engine.addStrip(new LedStripController(LedStrip.ofLength(4), new RecordingAdapter()), failing);
+            engine.start();
+
+            scheduler.runNext();
+            scheduler.runNext();
+            assertEquals(2, counting.frames.get());
+            assertEquals(2, healthy.last().orElseThrow().rgbAt(0));
+            assertEquals(1, scheduler.pendingTasks());
+            assertEquals(2, metrics.snapshot().histograms().get("multiEngine.frame").count());
+        }
+    }
+
+    @Test void restartWhileTickingKeepsOneTickChain() {
+        CountingEffect effect = new CountingEffect();
+        try (MultiStripAnimationEngine engine = engine()) {
+            engine.addStrip(new LedStripController(LedStrip.ofLength(4), new RecordingAdapter()), effect);
+            engine.start();
+            effect.onRender = () -> {
+                effect.onRender = () -> {
+                };
+                engine.stop();
+                engine.start();
+            };
+
+            scheduler.runNext();
+            // The hand-back queued by stop(), skipped as the engine runs again
+            scheduler.runNext();
+            // The interrupted tick must not reschedule next to the restarted chain
+            assertEquals(1, scheduler.pendingTasks());
+            scheduler.runNext();
+            assertEquals(2, effect.frames.get());
+        }
+    }
+
+    @Test void removingAStripMidTickWaitsForTheTickBeforeHandingItBack() throws InterruptedException {
+        AnimationEngineTest.SlowEffect slow = new AnimationEngineTest.SlowEffect();
+        RecordingAdapter adapter = new RecordingAdapter();
+        LedStripController controller = new LedStripController(LedStrip.ofLength(4), adapter);
+        try (MultiStripAnimationEngine engine = new MultiStripAnimationEngine(10, 2, FrameClock.system(), metrics)) {
+            engine.addStrip(controller, slow);
+            engine.start();
+            assertTrue(slow.rendering.await(5, TimeUnit.SECONDS));
+
+            engine.removeStrip(controller);
+            controller.setPixelRgb(1, 0xABCDEF);
+            // Not applied from this thread while a worker is still rendering the strip
+            assertTrue(adapter.last().isEmpty());
+
+            slow.finish.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (adapter.last().map(frame -> frame.rgbAt(1) != 0xABCDEF).orElse(true)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            LedStripState shown = adapter.last().orElseThrow();
+            assertEquals(0x123456, shown.rgbAt(0));
+            assertEquals(0xABCDEF, shown.rgbAt(1));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.senegas.ledstrip.domain.color;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedRgbTest {
+    @Test void blend8MatchesRgbColorBlend() {
+        RgbColor from = new RgbColor(10, 200, 30);
+        RgbColor to = new RgbColor(250, 5, 128);
+        for (int amount = 0; amount <= 255; amount++) {
+            RgbColor expected = from.blend(to, amount / 255.0);
+            assertEquals(expected.toPackedRgb(),
+                    PackedRgb.blend8(from.toPackedRgb(), to.toPackedRgb(), amount),
+                    "amount " + amount);
+        }
+    }
+
+    @Test void scale8MatchesWithBrightness() {
+        RgbColor color = new RgbColor(255, 128, 7);
+        for (int scale = 0; scale <= 255; scale++) {
+            assertEquals(color.withBrightness(scale / 255.0).toPackedRgb(),
+                    PackedRgb.scale8(color.toPackedRgb(), scale));
+        }
+    }
+
+    @Test void addSaturatesPerChannel() {
+        assertEquals(0xFFFF30, PackedRgb.add(0x80F010, 0x902020));
+    }
+
+    @Test void multiplyScreenAndMaxWorkPerChannel() {
+        assertEquals(0x400000, PackedRgb.multiply(0x80FF00, 0x8000FF));
+        assertEquals(0xC0FFFF, PackedRgb.screen(0x80FF00, 0x8000FF));
+        assertEquals(0x80FFFF, PackedRgb.max(0x80FF00, 0x8000FF));
+    }
+
+    @Test void namedColorsAreInterned() {
+        assertSame(RgbColor.RED, RgbColor.of(255, 0, 0));
+        assertSame(RgbColor.OFF, RgbColor.fromPackedRgb(0));
+        assertEquals(new RgbColor(1, 2, 3), RgbColor.fromPackedRgb(0x010203));
+    }
+}
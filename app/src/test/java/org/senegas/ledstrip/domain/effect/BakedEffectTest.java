@@ -0,0 +1,130 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.color.RgbColor;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BakedEffectTest {
+
+    /* Runs the live effect at its own deadlines and checks the baked copy against it after the first period */
+    private static void assertMatchesLive(PeriodicEffect live, PeriodicEffect source, int ledCount) {
+        BakedFrameCache cache = new BakedFrameCache(BakedFrameCache.DEFAULT_MAX_BYTES, BakedFrameCache.Storage.OFF_HEAP);
+        BakedEffect baked = new BakedEffect(source, cache, 20);
+        LedStrip liveStrip = LedStrip.ofLength(ledCount);
+        LedStrip bakedStrip = LedStrip.ofLength(ledCount);
+        long period = live.periodMillis(ledCount);
+
+        long t = 0;
+        while (t < 3 * period) {
+            live.apply(liveStrip, t);
+            if (t >= period) {
+                baked.apply(bakedStrip, t);
+                for (int i = 0; i < ledCount; i++) {
+                    assertEquals(liveStrip.getPixelRgb(i), bakedStrip.getPixelRgb(i), "t=" + t + " LED " + i);
+                }
+                assertEquals(live.nextUpdateMillis(t), baked.nextUpdateMillis(t), "next update after " + t);
+            }
+            t = live.nextUpdateMillis(t);
+        }
+        assertEquals(1, cache.size());
+    }
+
+    @Test void bakedRunningLightsMatchLiveEffect() {
+        assertMatchesLive(new RunningLightsEffect(RgbColor.RED, RgbColor.BLUE, 10),
+                new RunningLightsEffect(RgbColor.RED, RgbColor.BLUE, 10), 40);
+    }
+
+    @Test void bakedBreathMatchesLiveEffect() {
+        assertMatchesLive(new BreathEffect(RgbColor.GREEN), new BreathEffect(RgbColor.GREEN), 8);
+    }
+
+    /* Renders live and baked at the engine's fixed frame rate, off the effect's own deadlines */
+    private static void assertMatchesLiveAtFixedRate(PeriodicEffect live, PeriodicEffect source, int ledCount) {
+        BakedEffect baked = new BakedEffect(source,
+                new BakedFrameCache(BakedFrameCache.DEFAULT_MAX_BYTES, BakedFrameCache.Storage.HEAP), 20);
+        LedStrip liveStrip = LedStrip.ofLength(ledCount);
+        LedStrip bakedStrip = LedStrip.ofLength(ledCount);
+        long period = live.periodMillis(ledCount);
+
+        for (long t = 0; t < 3 * period; t += 20) {
+            live.apply(liveStrip, t);
+            baked.apply(bakedStrip, t);
+            for (int i = 0; i < ledCount; i++) {
+                assertEquals(liveStrip.getPixelRgb(i), bakedStrip.getPixelRgb(i), "t=" + t + " LED " + i);
+            }
+        }
+    }
+
+    @Test void bakedRunningLightsMatchLiveEffectAtFixedRate() {
+        assertMatchesLiveAtFixedRate(new RunningLightsEffect(RgbColor.RED, RgbColor.BLUE, 7),
+                new RunningLightsEffect(RgbColor.RED, RgbColor.BLUE, 7), 40);
+    }
+
+    @Test void bakedBreathMatchesLiveEffectAtFixedRate() {
+        assertMatchesLiveAtFixedRate(new BreathEffect(RgbColor.GREEN), new BreathEffect(RgbColor.GREEN), 8);
+    }
+
+    @Test void cycleTooLargeForCacheRunsLive() {
+        BakedFrameCache tiny = new BakedFrameCache(1024, BakedFrameCache.Storage.HEAP);
+        BakedEffect baked = new BakedEffect(new RainbowEffect(), tiny, 20);
+        LedStrip strip = LedStrip.ofLength(100);
+        assertTrue(baked.apply(strip, 500));
+        assertEquals(0, tiny.size());
+    }
+
+    /* Counts the frames the wrapped effect renders */
+    private static final class CountingEffect implements PeriodicEffect {
+        private final PeriodicEffect delegate;
+        int applied = 0;
+
+        CountingEffect(PeriodicEffect delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean apply(LedStrip strip, long timestampMillis) {
+            applied++;
+            return delegate.apply(strip, timestampMillis);
+        }
+
+        @Override
+        public long nextUpdateMillis(long timestampMillis) {
+            return delegate.nextUpdateMillis(timestampMillis);
+        }
+
+        @Override
+        public void reset() {
+            delegate.reset();
+        }
+
+        @Override
+        public long periodMillis(int ledCount) {
+            return delegate.periodMillis(ledCount);
+        }
+    }
+
+    @Test void prebakeRendersTheCycleAheadOfTheFirstFrame() {
+        BakedFrameCache cache = new BakedFrameCache(BakedFrameCache.DEFAULT_MAX_BYTES, BakedFrameCache.Storage.HEAP);
+        CountingEffect source = new CountingEffect(new RunningLightsEffect(RgbColor.RED, RgbColor.BLUE, 10));
+        BakedEffect baked = new BakedEffect(source, cache, 20);
+        assertTrue(baked.prebake(40));
+        assertEquals(1, cache.size());
+        int bakingFrames = source.applied;
+        assertTrue(bakingFrames > 0);
+
+        LedStrip strip = LedStrip.ofLength(40);
+        assertTrue(baked.apply(strip, 0));
+        assertTrue(baked.apply(strip, 1000));
+        // Played from the prebaked cycle: the source is not run on the render path
+        assertEquals(bakingFrames, source.applied);
+    }
+
+    @Test void prebakeReportsCyclesThatRunLive() {
+        BakedFrameCache tiny = new BakedFrameCache(1024, BakedFrameCache.Storage.HEAP);
+        BakedEffect baked = new BakedEffect(new RainbowEffect(), tiny, 20);
+        assertFalse(baked.prebake(100));
+        assertThrows(IllegalArgumentException.class, () -> baked.prebake(0));
+    }
+}
@@ -0,0 +1,122 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.effect.LayeredEffect.BlendMode;
+import org.senegas.ledstrip.domain.effect.LayeredEffect.Layer;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LayeredEffectTest {
+    private static final int BASE = 0x804020;
+    private static final int TOP = 0x40C0F0;
+    private static final int OFF = -1;
+
+    /* Lights LEDs with fixed colors, OFF leaving one dark, and reports a change only while told to */
+    private static final class PixelsEffect extends AbstractEffect {
+        int[] colors;
+        boolean changes = true;
+
+        PixelsEffect(int... colors) {
+            super("Pixels");
+            this.colors = colors;
+        }
+
+        @Override
+        public boolean apply(LedStrip strip, long timestampMillis) {
+            if (!changes) {
+                return false;
+            }
+            for (int i = 0; i < colors.length; i++) {
+                if (colors[i] == OFF) {
+                    strip.turnOff(i);
+                } else {
+                    strip.setPixelRgb(i, colors[i]);
+                }
+            }
+            return true;
+        }
+    }
+
+    /* Composes TOP over BASE on a single LED */
+    private static int blended(BlendMode mode, int opacity) {
+        LedStrip strip = LedStrip.ofLength(1);
+        LayeredEffect layered = new LayeredEffect(
+                new Layer(new PixelsEffect(BASE), BlendMode.NORMAL),
+                new Layer(new PixelsEffect(TOP), mode, opacity));
+        assertTrue(layered.apply(strip, 0));
+        return strip.getPixelRgb(0);
+    }
+
+    @Test void blendModesCombineTheLayerWithWhatIsBelow() {
+        assertEquals(0x40C0F0, blended(BlendMode.NORMAL, 255));
+        assertEquals(0xC0FFFF, blended(BlendMode.ADD, 255));
+        assertEquals(0x20301E, blended(BlendMode.MULTIPLY, 255));
+        assertEquals(0xA0D0F2, blended(BlendMode.SCREEN, 255));
+        assertEquals(0x80C0F0, blended(BlendMode.MAX, 255));
+    }
+
+    @Test void opacityBlendsTheLayerOverWhatIsBelow() {
+        assertEquals(BASE, blended(BlendMode.NORMAL, 0));
+        assertEquals(0x608088, blended(BlendMode.NORMAL, 128));
+        assertEquals(TOP, blended(BlendMode.NORMAL, 255));
+        // Opacity applies to the blended result, not to the layer's own color
+        assertEquals(BASE, blended(BlendMode.ADD, 0));
+    }
+
+    @Test void laterLayersAreDrawnOnTop() {
+        LedStrip strip = LedStrip.ofLength(1);
+        new LayeredEffect(new Layer(new PixelsEffect(BASE), BlendMode.NORMAL),
+                new Layer(new PixelsEffect(TOP), BlendMode.NORMAL)).apply(strip, 0);
+        assertEquals(TOP, strip.getPixelRgb(0));
+
+        new LayeredEffect(new Layer(new PixelsEffect(TOP), BlendMode.NORMAL),
+                new Layer(new PixelsEffect(BASE), BlendMode.NORMAL)).apply(strip, 0);
+        assertEquals(BASE, strip.getPixelRgb(0));
+    }
+
+    @Test void ledsOffInTheTopLayerShowTheBase() {
+        LedStrip strip = LedStrip.ofLength(3);
+        new LayeredEffect(new Layer(new PixelsEffect(BASE, BASE, BASE), BlendMode.NORMAL),
+                new Layer(new PixelsEffect(OFF, TOP, OFF), BlendMode.NORMAL)).apply(strip, 0);
+
+        assertEquals(BASE, strip.getPixelRgb(0));
+        assertEquals(TOP, strip.getPixelRgb(1));
+        assertEquals(BASE, strip.getPixelRgb(2));
+    }
+
+    @Test void unchangedTopLayerKeepsItsPixelsOverAChangingBase() {
+        PixelsEffect base = new PixelsEffect(BASE, BASE);
+        PixelsEffect top = new PixelsEffect(TOP, OFF);
+        LayeredEffect layered = new LayeredEffect(new Layer(base, BlendMode.NORMAL),
+                new Layer(top, BlendMode.NORMAL));
+        LedStrip strip = LedStrip.ofLength(2);
+        layered.apply(strip, 0);
+
+        top.changes = false;
+        base.colors = new int[]{0x111111, 0x222222};
+        assertTrue(layered.apply(strip, 10));
+        assertEquals(TOP, strip.getPixelRgb(0));
+        assertEquals(0x222222, strip.getPixelRgb(1));
+    }
+
+    @Test void frameWhereNoLayerChangedIsSkipped() {
+        PixelsEffect base = new PixelsEffect(BASE);
+        PixelsEffect top = new PixelsEffect(OFF);
+        LayeredEffect layered = new LayeredEffect(new Layer(base, BlendMode.NORMAL),
+                new Layer(top, BlendMode.ADD));
+        LedStrip strip = LedStrip.ofLength(1);
+        assertTrue(layered.apply(strip, 0));
+
+        base.changes = false;
+        top.changes = false;
+        strip.setPixelRgb(0, 0x0000FF);
+        assertFalse(layered.apply(strip, 10));
+        assertEquals(0x0000FF, strip.getPixelRgb(0));
+
+        // A reset composes again even though no layer reports a change
+        layered.reset();
+        assertTrue(layered.apply(strip, 20));
+        assertEquals(BASE, strip.getPixelRgb(0));
+    }
+}
@@ -0,0 +1,122 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.color.RgbColor;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PixelShaderEffectTest {
+
+    /* Colors each pixel from its index, the strip length and the time, counting where it was shaded */
+    private static final class IndexShader extends PixelShaderEffect {
+        final AtomicInteger shaded = new AtomicInteger();
+        final AtomicInteger shadedInPool = new AtomicInteger();
+        boolean skip = false;
+
+        IndexShader(int parallelThreshold) {
+            super("Index", parallelThreshold, ForkJoinPool.commonPool());
+        }
+
+        @Override
+        protected boolean beginFrame(int ledCount, long timeNanos) {
+            return !skip;
+        }
+
+        @Override
+        protected int shade(int index, int ledCount, long timeNanos) {
+            shaded.incrementAndGet();
+            if (Thread.currentThread() instanceof ForkJoinWorkerThread) {
+                shadedInPool.incrementAndGet();
+            }
+            return (index * 31 + ledCount + (int) (timeNanos / NANOS_PER_MILLI)) & 0xFFFFFF;
+        }
+    }
+
+    private static int[] pixels(LedStrip strip) {
+        int[] rgb = new int[strip.getLength()];
+        for (int i = 0; i < rgb.length; i++) {
+            rgb[i] = strip.getPixelRgb(i);
+        }
+        return rgb;
+    }
+
+    private static int[] render(Effect effect, int ledCount, long timeMillis) {
+        LedStrip strip = LedStrip.ofLength(ledCount);
+        assertTrue(effect.apply(strip, timeMillis));
+        return pixels(strip);
+    }
+
+    /* Shades in parallel from the default threshold and checks every pixel against a sequential run */
+    private static void assertParallelMatchesSequential(int ledCount) {
+        IndexShader parallel = new IndexShader(PixelShaderEffect.DEFAULT_PARALLEL_THRESHOLD);
+        IndexShader sequential = new IndexShader(Integer.MAX_VALUE);
+
+        assertArrayEquals(render(sequential, ledCount, 7), render(parallel, ledCount, 7));
+        // Every pixel shaded exactly once: spans neither overlap nor leave gaps at their boundaries
+        assertEquals(ledCount, parallel.shaded.get());
+        assertTrue(parallel.shadedInPool.get() > 0, "no span was shaded on the pool");
+        assertEquals(0, sequential.shadedInPool.get());
+    }
+
+    @Test void parallelShadingMatchesSequentialJustAboveTheThreshold() {
+        assertParallelMatchesSequential(PixelShaderEffect.DEFAULT_PARALLEL_THRESHOLD + 1);
+    }
+
+    @Test void parallelShadingMatchesSequentialWithAPartialSpan() {
+        // Not a multiple of the 2048 LED span
+        assertParallelMatchesSequential(10_000);
+    }
+
+    @Test void shortStripIsShadedOnTheCallingThread() {
+        IndexShader shader = new IndexShader(PixelShaderEffect.DEFAULT_PARALLEL_THRESHOLD);
+        render(shader, PixelShaderEffect.DEFAULT_PARALLEL_THRESHOLD - 1, 0);
+        assertEquals(0, shader.shadedInPool.get());
+    }
+
+    @Test void skippedFrameLeavesTheStripUnchanged() {
+        IndexShader shader = new IndexShader(PixelShaderEffect.DEFAULT_PARALLEL_THRESHOLD);
+        shader.skip = true;
+        LedStrip strip = LedStrip.ofLength(4);
+        strip.fillRgb(0x123456);
+
+        assertFalse(shader.apply(strip, 0));
+        assertEquals(0, shader.shaded.get());
+        assertArrayEquals(new int[]{0x123456, 0x123456, 0x123456, 0x123456}, pixels(strip));
+    }
+
+    @Test void rainbowMatchesItsPerPixelLoop() {
+        RainbowEffect rainbow = new RainbowEffect();
+        assertArrayEquals(new int[]{0xFF0000, 0xFFFF00, 0x00FF00, 0x00FFFF, 0x0000FF, 0xFF00FF},
+                render(rainbow, 6, 0));
+        assertArrayEquals(new int[]{0x80FF00, 0x00FF80, 0x0080FF, 0x8000FF, 0xFF0080, 0xFF8000},
+                render(rainbow, 6, 1000));
+    }
+
+    @Test void parallelRainbowMatchesItsPerPixelLoopAcrossSpans() {
+        int[] shown = render(new RainbowEffect(), PixelShaderEffect.DEFAULT_PARALLEL_THRESHOLD + 1, 250);
+        assertEquals(0xFF6000, shown[0]);
+        assertEquals(0x20FF00, shown[2047]);
+        assertEquals(0x20FF00, shown[2048]);
+        assertEquals(0x009FFF, shown[4096]);
+        assertEquals(0xDF00FF, shown[6144]);
+        assertEquals(0xFF5F00, shown[8191]);
+        assertEquals(0xFF5F00, shown[8192]);
+    }
+
+    @Test void runningLightsMatchTheirPerPixelLoop() {
+        RunningLightsEffect lights = new RunningLightsEffect(RgbColor.RED, RgbColor.BLUE, 10);
+        assertArrayEquals(new int[]{0xBF0040, 0xF0000F, 0xE1001E, 0xAE0051, 0x7D0082,
+                0x4500BA, 0x1300EC, 0x1800E7, 0x4B00B4, 0x7F0080}, render(lights, 10, 0));
+        assertEquals(0, lights.getCurrentPhase());
+
+        // 64 steps of 10 ms later
+        assertArrayEquals(new int[]{0x3A00C5, 0x6E0091, 0xA2005D, 0xD4002B, 0xF90006,
+                0xCC0033, 0x960069, 0x65009A, 0x2F00D0, 0x0000FF}, render(lights, 10, 640));
+        assertEquals(64, lights.getCurrentPhase());
+    }
+}
@@ -0,0 +1,96 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.effect.SegmentedEffect.Segment;
+import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.domain.led.LedStripController;
+import org.senegas.ledstrip.domain.led.LedStripState;
+import org.senegas.ledstrip.hardware.LedStripHardwareAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedEffectTest {
+
+    /* Sets LED i of its strip to the color first + i */
+    private static final class GradientEffect extends AbstractEffect {
+        private final int first;
+
+        GradientEffect(int first) {
+            super("Gradient");
+            this.first = first;
+        }
+
+        @Override
+        public boolean apply(LedStrip strip, long timestampMillis) {
+            for (int i = 0; i < strip.getLength(); i++) {
+                strip.setPixelRgb(i, first + i);
+            }
+            return true;
+        }
+    }
+
+    /* Records the dirty range and pixels of every frame, which the pool reuses once released */
+    private static final class FrameLog implements LedStripHardwareAdapter {
+        final List<int[]> dirtyRanges = new ArrayList<>();
+        final List<int[]> pixels = new ArrayList<>();
+
+        @Override
+        public void apply(LedStripState state) {
+            dirtyRanges.add(new int[]{state.getDirtyFrom(), state.getDirtyTo()});
+            int[] rgb = new int[state.getLength()];
+            state.copyTo(rgb);
+            pixels.add(rgb);
+        }
+    }
+
+    @Test void reversedSegmentRendersMirroredIntoTheParent() {
+        LedStrip strip = LedStrip.ofLength(8);
+        assertTrue(new SegmentedEffect(new Segment(2, 4, true, new GradientEffect(1))).apply(strip, 0));
+
+        assertEquals(4, strip.getPixelRgb(2));
+        assertEquals(3, strip.getPixelRgb(3));
+        assertEquals(2, strip.getPixelRgb(4));
+        assertEquals(1, strip.getPixelRgb(5));
+        assertFalse(strip.isOn(1));
+        assertFalse(strip.isOn(6));
+    }
+
+    @Test void adjacentSegmentsDoNotBleed() {
+        LedStrip strip = LedStrip.ofLength(8);
+        new SegmentedEffect(
+                new Segment(1, 3, new GradientEffect(0x10)),
+                new Segment(4, 3, true, new GradientEffect(0x20))).apply(strip, 0);
+
+        assertFalse(strip.isOn(0));
+        assertEquals(0x10, strip.getPixelRgb(1));
+        assertEquals(0x12, strip.getPixelRgb(3));
+        assertEquals(0x22, strip.getPixelRgb(4));
+        assertEquals(0x20, strip.getPixelRgb(6));
+        assertFalse(strip.isOn(7));
+    }
+
+    @Test void allSegmentsReachTheAdapterInOneFrame() {
+        FrameLog adapter = new FrameLog();
+        LedStripController controller = new LedStripController(LedStrip.ofLength(20), adapter);
+        controller.publish();
+        adapter.dirtyRanges.clear();
+        adapter.pixels.clear();
+
+        SegmentedEffect segmented = new SegmentedEffect(
+                new Segment(2, 3, new GradientEffect(0x100)),
+                new Segment(10, 4, true, new GradientEffect(0x200)));
+        assertTrue(controller.applyEffect(segmented, 0));
+
+        assertEquals(1, adapter.pixels.size());
+        assertArrayEquals(new int[]{2, 14}, adapter.dirtyRanges.get(0));
+        int[] shown = adapter.pixels.get(0);
+        assertEquals(0x100, shown[2]);
+        assertEquals(0x102, shown[4]);
+        assertEquals(0x203, shown[10]);
+        assertEquals(0x200, shown[13]);
+        assertEquals(0, shown[5]);
+    }
+}
@@ -0,0 +1,66 @@
+package org.senegas.ledstrip.domain.effect;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.color.RgbColor;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceLoaderEffectRegistryTest {
+
+    @Test void discoversBuiltInFactories() {
+        List<String> builtIn = new DefaultEffectRegistry().availableEffects().stream()
+                .map(AbstractEffect::getName)
+                .toList();
+        assertEquals(builtIn, new ServiceLoaderEffectRegistry().effectNames());
+    }
+
+    @Test void createsEffectsLazilyAndCachesPerKey() {
+        AtomicInteger created = new AtomicInteger();
+        EffectFactory counting = new EffectFactory() {
+            @Override
+            public String getName() {
+                return "Counting";
+            }
+
+            @Override
+            public java.util.Map<String, String> getDefaultParameters() {
+                return java.util.Map.of("color", "RED");
+            }
+
+            @Override
+            public AbstractEffect create(EffectParameters parameters, int ledCount) {
+                created.incrementAndGet();
+                return new BreathEffect(parameters.getColor("color", RgbColor.RED));
+            }
+        };
+        ServiceLoaderEffectRegistry registry = new ServiceLoaderEffectRegistry(List.of(counting));
+        assertEquals(List.of("Counting"), registry.effectNames());
+        assertEquals(0, created.get());
+
+        AbstractEffect first = registry.effect("counting", EffectParameters.NONE, 30);
+        assertSame(first, registry.effect("Counting", EffectParameters.of("color", "RED"), 30));
+        assertEquals(1, created.get());
+        assertNotSame(first, registry.effect("Counting", EffectParameters.of("color", "#FF0000"), 30));
+        assertEquals(2, created.get());
+
+        assertNotSame(first, registry.effect("Counting", EffectParameters.NONE, 60));
+        assertNotSame(first, registry.newEffect("Counting", EffectParameters.NONE, 30));
+        assertEquals(4, created.get());
+        assertThrows(IllegalArgumentException.class, () -> registry.effect("Missing", EffectParameters.NONE, 30));
+    }
+
+    @Test void appliesParameters() {
+        ServiceLoaderEffectRegistry registry = new ServiceLoaderEffectRegistry();
+        LedStrip strip = LedStrip.ofLength(4);
+        registry.effect("Color Wipe", EffectParameters.of("color", "#00FF00", "stepMillis", "10"), 4)
+                .apply(strip, 10);
+        assertEquals(0x00FF00, strip.getPixelRgb(0));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.effect("Color Wipe", EffectParameters.of("color", "teal"), 4));
+    }
+}
@@ -0,0 +1,103 @@
+package org.senegas.ledstrip.domain.led;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.color.RgbColor;
+import org.senegas.ledstrip.hardware.LedStripHardwareAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirtyRangeTest {
+
+    /* Records the dirty range of every delta it receives */
+    private static final class RangeRecorder implements LedStripHardwareAdapter {
+        private final List<int[]> ranges = new ArrayList<>();
+        private int fullApplies = 0;
+
+        @Override
+        public void apply(LedStripState state) {
+            fullApplies++;
+        }
+
+        @Override
+        public void applyDelta(LedStripState state) {
+            ranges.add(new int[]{state.getDirtyFrom(), state.getDirtyTo()});
+        }
+
+        int[] last() {
+            return ranges.get(ranges.size() - 1);
+        }
+    }
+
+    @Test void rangeGrowsToCoverEveryMark() {
+        DirtyRange range = new DirtyRange(10);
+        assertEquals(0, range.from());
+        assertEquals(10, range.to());
+
+        range.reset();
+        assertTrue(range.isEmpty());
+        assertEquals(0, range.from());
+        assertEquals(0, range.to());
+
+        range.mark(5);
+        range.mark(2);
+        assertEquals(2, range.from());
+        assertEquals(6, range.to());
+        range.mark(7, 9);
+        assertEquals(2, range.from());
+        assertEquals(9, range.to());
+    }
+
+    @Test void deltasCarryOnlyChangedPixels() {
+        RangeRecorder adapter = new RangeRecorder();
+        LedStripController controller = new LedStripController(LedStrip.ofLength(16), adapter);
+
+        controller.setPixel(3, RgbColor.RED);
+        // First frame covers the whole strip: nothing was published before
+        assertArrayEquals(new int[]{0, 16}, adapter.last());
+
+        controller.setPixel(9, RgbColor.BLUE);
+        assertArrayEquals(new int[]{9, 10}, adapter.last());
+
+        controller.setPixel(9, RgbColor.BLUE);
+        assertArrayEquals(new int[]{0, 0}, adapter.last());
+
+        controller.submit(strip -> {
+            strip.setPixel(4, RgbColor.GREEN);
+            strip.setPixel(12, RgbColor.GREEN);
+        });
+        assertArrayEquals(new int[]{4, 13}, adapter.last());
+
+        controller.turnOffPixel(12);
+        assertArrayEquals(new int[]{12, 13}, adapter.last());
+
+        controller.fill(RgbColor.WHITE);
+        assertArrayEquals(new int[]{0, 16}, adapter.last());
+        assertEquals(0, adapter.fullApplies);
+    }
+
+    @Test void unchangedBulkUpdateIsEmpty() {
+        RangeRecorder adapter = new RangeRecorder();
+        LedStrip strip = LedStrip.ofLength(8);
+        LedStripController controller = new LedStripController(strip, adapter);
+        int[] colors = {1, 2, 3, 4, 5, 6, 7, 8};
+        controller.submit(s -> s.setPixelsRgb(colors));
+        controller.submit(s -> s.setPixelsRgb(colors));
+        assertArrayEquals(new int[]{0, 0}, adapter.last());
+
+        colors[6] = 0x444444;
+        colors[2] = 0x222222;
+        controller.submit(s -> s.setPixelsRgb(colors));
+        assertArrayEquals(new int[]{2, 7}, adapter.last());
+    }
+
+    @Test void snapshotsAreFullyDirty() {
+        LedStrip strip = LedStrip.ofLength(8);
+        LedStripState snapshot = strip.snapshot();
+        assertEquals(0, snapshot.getDirtyFrom());
+        assertEquals(8, snapshot.getDirtyTo());
+        assertTrue(snapshot.hasChanges());
+    }
+}
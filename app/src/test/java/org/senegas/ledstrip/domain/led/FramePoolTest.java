@@ -0,0 +1,86 @@
+package org.senegas.ledstrip.domain.led;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.color.RgbColor;
+import org.senegas.ledstrip.hardware.LedStripHardwareAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FramePoolTest {
+
+    @Test void releasedFramesAreReused() {
+        FramePool pool = new FramePool(4, 2);
+        LedStripState first = pool.acquire();
+        first.release();
+        LedStripState second = pool.acquire();
+        second.release();
+        assertSame(first, pool.acquire());
+        assertEquals(0, pool.getMisses());
+    }
+
+    @Test void retainedFramesAreNotReused() {
+        FramePool pool = new FramePool(4, 2);
+        LedStripState first = pool.acquire();
+        first.retain();
+        first.release();
+        LedStripState second = pool.acquire();
+        assertNotSame(first, second);
+        second.release();
+        assertSame(second, pool.acquire());
+
+        first.release();
+        assertSame(first, pool.acquire());
+    }
+
+    @Test void exhaustedPoolFallsBackToUnpooledFrames() {
+        FramePool pool = new FramePool(4, 2);
+        LedStripState first = pool.acquire();
+        LedStripState second = pool.acquire();
+        LedStripState extra = pool.acquire();
+        assertNotSame(first, extra);
+        assertNotSame(second, extra);
+        assertEquals(1, pool.getMisses());
+        assertEquals(4, extra.getLength());
+
+        // Unpooled frames ignore reference counting
+        extra.release();
+        extra.release();
+        assertSame(extra, extra.retain());
+
+        first.release();
+        assertSame(first, pool.acquire());
+        assertEquals(1, pool.getMisses());
+    }
+
+    @Test void unbalancedReleaseIsRejected() {
+        FramePool pool = new FramePool(4, 1);
+        LedStripState frame = pool.acquire();
+        frame.release();
+        assertThrows(IllegalStateException.class, frame::release);
+        assertThrows(IllegalStateException.class, frame::retain);
+        assertSame(frame, pool.acquire());
+    }
+
+    @Test void heldFramesKeepTheirContentAcrossPublishes() {
+        List<LedStripState> held = new ArrayList<>();
+        LedStripHardwareAdapter hoarding = state -> held.add(state.retain());
+        LedStripController controller = new LedStripController(LedStrip.ofLength(3), hoarding);
+
+        int[] colors = {0xFF0000, 0x00FF00, 0x0000FF, 0xFFFFFF, 0x808080, 0x123456};
+        for (int color : colors) {
+            controller.fillRgb(color);
+        }
+        assertEquals(colors.length, held.size());
+        for (int f = 0; f < colors.length; f++) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(colors[f], held.get(f).rgbAt(i), "frame " + f);
+            }
+        }
+
+        held.forEach(LedStripState::release);
+        controller.fill(RgbColor.RED);
+    }
+}
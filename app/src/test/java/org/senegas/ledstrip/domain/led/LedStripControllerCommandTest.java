@@ -0,0 +1,131 @@
+package org.senegas.ledstrip.domain.led;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.app.animation.AnimationEngine;
+import org.senegas.ledstrip.domain.color.RgbColor;
+import org.senegas.ledstrip.domain.effect.AbstractEffect;
+import org.senegas.ledstrip.hardware.RecordingAdapter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedStripControllerCommandTest {
+
+    /* Never changes the strip and asks to be called again only in 10 s */
+    private static final class IdleEffect extends AbstractEffect {
+        IdleEffect() {
+            super("Idle");
+        }
+
+        @Override
+        public boolean apply(LedStrip strip, long timestampMillis) {
+            return false;
+        }
+
+        @Override
+        public long nextUpdateMillis(long timestampMillis) {
+            return timestampMillis + 10_000;
+        }
+    }
+
+    private static int lastPublished(RecordingAdapter adapter, int index) {
+        return adapter.last().orElseThrow().rgbAt(index);
+    }
+
+    @Test void editsApplyImmediatelyWithoutRenderer() {
+        RecordingAdapter adapter = new RecordingAdapter();
+        LedStripController controller = new LedStripController(LedStrip.ofLength(4), adapter);
+
+        controller.setPixel(2, RgbColor.GREEN);
+        assertEquals(0x00FF00, lastPublished(adapter, 2));
+        assertFalse(controller.hasPendingCommands());
+        assertThrows(IndexOutOfBoundsException.class, () -> controller.setPixel(4, RgbColor.RED));
+    }
+
+    @Test void attachedRendererBatchesEditsIntoNextFrame() {
+        RecordingAdapter adapter = new RecordingAdapter();
+        LedStripController controller = new LedStripController(LedStrip.ofLength(4), adapter);
+        AtomicInteger wakeUps = new AtomicInteger();
+        Runnable renderer = wakeUps::incrementAndGet;
+        controller.attachRenderer(renderer);
+
+        controller.setPixel(0, RgbColor.RED);
+        controller.submit(strip -> {
+            throw new IllegalStateException("broken command");
+        });
+        controller.setPixel(1, RgbColor.BLUE);
+        assertEquals(3, wakeUps.get());
+        assertTrue(adapter.last().isEmpty());
+        assertThrows(IllegalStateException.class, () -> controller.attachRenderer(() -> { }));
+
+        assertTrue(controller.applyEffectNanos(new IdleEffect(), 0));
+        assertEquals(0xFF0000, lastPublished(adapter, 0));
+        assertEquals(0x0000FF, lastPublished(adapter, 1));
+        assertFalse(controller.applyEffectNanos(new IdleEffect(), 1));
+
+        controller.setPixel(3, RgbColor.WHITE);
+        controller.detachRenderer(renderer);
+        assertEquals(0xFFFFFF, lastPublished(adapter, 3));
+    }
+
+    @Test void publishedColorsLagQueuedEdits() {
+        LedStripController controller = new LedStripController(LedStrip.ofLength(4), new RecordingAdapter());
+        assertEquals(4, controller.getLength());
+        Runnable renderer = () -> { };
+        controller.attachRenderer(renderer);
+
+        controller.setPixel(2, RgbColor.RED);
+        assertEquals(RgbColor.OFF, controller.getPublishedColor(2));
+        controller.applyEffectNanos(new IdleEffect(), 0);
+        assertEquals(RgbColor.RED, controller.getPublishedColor(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> controller.getPublishedColor(4));
+    }
+
+    @Test void concurrentEditsAreAllApplied() throws InterruptedException {
+        LedStripController controller = new LedStripController(LedStrip.ofLength(8), new RecordingAdapter());
+        Runnable renderer = () -> { };
+        controller.attachRenderer(renderer);
+        AtomicInteger applied = new AtomicInteger();
+
+        Thread[] producers = new Thread[4];
+        for (int p = 0; p < producers.length; p++) {
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    controller.submit(strip -> applied.incrementAndGet());
+                }
+            });
+            producers[p].start();
+        }
+        while (applied.get() < 4000) {
+            controller.drainCommands();
+            Thread.onSpinWait();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertEquals(4000, applied.get());
+    }
+
+    @Test void editWakesIdleDeadlineEngine() throws InterruptedException {
+        RecordingAdapter adapter = new RecordingAdapter();
+        LedStripController controller = new LedStripController(LedStrip.ofLength(4), adapter);
+        try (AnimationEngine engine = new AnimationEngine(controller, 10, AnimationEngine.Scheduling.DEADLINE)) {
+            engine.setCurrentEffect(new IdleEffect());
+            engine.start();
+            Thread.sleep(50);
+
+            long start = System.nanoTime();
+            controller.setPixel(1, RgbColor.RED);
+            while (adapter.last().isEmpty() && System.nanoTime() - start < 2_000_000_000L) {
+                Thread.sleep(1);
+            }
+            long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+            assertEquals(0xFF0000, lastPublished(adapter, 1));
+            assertTrue(waitedMillis < AnimationEngine.MAX_IDLE_MILLIS / 2, "waited " + waitedMillis + " ms");
+        }
+        // Stopped engine hands the strip back
+        controller.setPixel(2, RgbColor.GREEN);
+        assertEquals(0x00FF00, lastPublished(adapter, 2));
+    }
+}
@@ -0,0 +1,41 @@
+package org.senegas.ledstrip.domain.led;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedStripSegmentTest {
+
+    @Test void reversedSegmentWritesThroughToParent() {
+        LedStrip strip = LedStrip.ofLength(100);
+        LedStrip segment = strip.segment(60, 10, true);
+
+        segment.setPixelRgb(0, 0xFF0000);
+        assertEquals(0xFF0000, strip.getPixelRgb(69));
+
+        segment.setPixelsRgb(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        assertEquals(10, strip.getPixelRgb(60));
+        assertEquals(1, strip.getPixelRgb(69));
+        assertFalse(strip.isOn(59));
+        assertFalse(strip.isOn(70));
+
+        segment.segment(0, 2).turnOffAll();
+        assertFalse(strip.isOn(69));
+        assertFalse(strip.isOn(68));
+        assertTrue(strip.isOn(67));
+    }
+
+    @Test void segmentChangesShowUpInParentDirtyRange() {
+        LedStrip strip = LedStrip.ofLength(200);
+        LedStripState initial = new LedStripState(new int[200], null);
+        strip.publishInto(initial);
+
+        strip.segment(120, 40).fillRgb(0x00FF00);
+        LedStripState frame = new LedStripState(new int[200], null);
+        strip.publishInto(frame);
+        assertEquals(120, frame.getDirtyFrom());
+        assertEquals(160, frame.getDirtyTo());
+        assertEquals(0x00FF00, frame.rgbAt(159));
+        assertEquals(0, frame.rgbAt(160));
+    }
+}
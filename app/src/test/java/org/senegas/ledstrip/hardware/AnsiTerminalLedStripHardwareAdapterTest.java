@@ -0,0 +1,86 @@
+package org.senegas.ledstrip.hardware;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnsiTerminalLedStripHardwareAdapterTest {
+
+    private static LedStripState frame(int rgb) {
+        return LedStripState.ofPackedRgb(new int[]{rgb, rgb, rgb});
+    }
+
+    /* Terminal whose writes block until released, or fail while failures remain */
+    private static final class SlowChannel implements WritableByteChannel {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch written = new CountDownLatch(1);
+        final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failures.getAndDecrement() > 0) {
+                throw new IOException("terminal gone");
+            }
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            int n = src.remaining();
+            src.position(src.limit());
+            written.countDown();
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test void applyDoesNotWaitForTheTerminal() throws InterruptedException {
+        SlowChannel channel = new SlowChannel();
+        try (AnsiTerminalLedStripHardwareAdapter adapter =
+                     new AnsiTerminalLedStripHardwareAdapter(3, 3, 1000, channel)) {
+            adapter.apply(frame(0xFF0000));
+            assertTrue(channel.writing.await(5, TimeUnit.SECONDS));
+
+            Thread render = new Thread(() -> adapter.apply(frame(0x00FF00)));
+            render.start();
+            render.join(TimeUnit.SECONDS.toMillis(5));
+            boolean blocked = render.isAlive();
+            channel.release.countDown();
+            assertFalse(blocked, "apply() waited for the terminal write");
+        }
+    }
+
+    @Test void failedRedrawDoesNotStopLaterRedraws() throws InterruptedException {
+        SlowChannel channel = new SlowChannel();
+        channel.failures.set(1);
+        channel.release.countDown();
+        try (AnsiTerminalLedStripHardwareAdapter adapter =
+                     new AnsiTerminalLedStripHardwareAdapter(3, 3, 1000, channel)) {
+            adapter.apply(frame(0xFF0000));
+            while (channel.failures.get() > 0) {
+                Thread.sleep(1);
+            }
+            adapter.apply(frame(0x00FF00));
+            assertTrue(channel.written.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.senegas.ledstrip.hardware;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.domain.led.LedStripController;
+import org.senegas.ledstrip.domain.led.LedStripState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameMailboxTest {
+
+    private static LedStripState frame(int rgb) {
+        return LedStripState.ofPackedRgb(new int[]{rgb, rgb});
+    }
+
+    /* Hands every published frame to the mailbox, as the asynchronous adapters do */
+    private static final class MailboxAdapter implements LedStripHardwareAdapter {
+        final FrameMailbox mailbox = new FrameMailbox();
+        final List<LedStripState> offered = new ArrayList<>();
+
+        @Override
+        public void apply(LedStripState state) {
+            offered.add(state);
+            mailbox.offer(state, false);
+        }
+    }
+
+    @Test void latestFrameWins() throws InterruptedException {
+        FrameMailbox mailbox = new FrameMailbox();
+        mailbox.offer(frame(1), false);
+        mailbox.offer(frame(2), false);
+        mailbox.offer(frame(3), false);
+
+        assertEquals(3, mailbox.take().rgbAt(0));
+        assertEquals(2, mailbox.getDroppedFrames());
+    }
+
+    @Test void fullFrameIsRequestedAfterADrop() throws InterruptedException {
+        FrameMailbox mailbox = new FrameMailbox();
+        mailbox.offer(frame(1), false);
+        mailbox.take();
+        // Nothing was seen before the first frame
+        assertTrue(mailbox.tookFullFrame());
+
+        mailbox.offer(frame(2), false);
+        mailbox.take();
+        assertFalse(mailbox.tookFullFrame());
+
+        mailbox.offer(frame(3), false);
+        mailbox.offer(frame(4), false);
+        assertEquals(4, mailbox.take().rgbAt(0));
+        assertTrue(mailbox.tookFullFrame());
+
+        mailbox.offer(frame(5), false);
+        mailbox.take();
+        assertFalse(mailbox.tookFullFrame());
+    }
+
+    @Test void fullFrameOfferIsKept() throws InterruptedException {
+        FrameMailbox mailbox = new FrameMailbox();
+        mailbox.offer(frame(1), false);
+        mailbox.take();
+
+        mailbox.offer(frame(2), true);
+        mailbox.offer(frame(3), false);
+        mailbox.take();
+        assertTrue(mailbox.tookFullFrame());
+    }
+
+    @Test void droppedFramesAreReleased() throws InterruptedException {
+        MailboxAdapter adapter = new MailboxAdapter();
+        LedStripController controller = new LedStripController(LedStrip.ofLength(2), adapter);
+        controller.setPixelRgb(0, 1);
+        controller.setPixelRgb(0, 2);
+
+        LedStripState dropped = adapter.offered.get(0);
+        LedStripState pending = adapter.offered.get(1);
+        // Only the mailbox held the dropped pooled frame, so it went back to the pool
+        assertThrows(IllegalStateException.class, dropped::retain);
+
+        LedStripState taken = adapter.mailbox.take();
+        assertSame(pending, taken);
+        assertEquals(2, taken.rgbAt(0));
+        taken.release();
+        assertThrows(IllegalStateException.class, taken::retain);
+    }
+
+    @Test void closeReleasesThePendingFrameAndEndsTake() throws InterruptedException {
+        MailboxAdapter adapter = new MailboxAdapter();
+        LedStripController controller = new LedStripController(LedStrip.ofLength(2), adapter);
+        controller.setPixelRgb(0, 1);
+
+        adapter.mailbox.close();
+        assertThrows(IllegalStateException.class, adapter.offered.get(0)::retain);
+        assertNull(adapter.mailbox.take());
+
+        // Frames offered after close are ignored rather than retained
+        controller.setPixelRgb(0, 2);
+        assertThrows(IllegalStateException.class, adapter.offered.get(1)::retain);
+        assertNull(adapter.mailbox.take());
+    }
+}
@@ -0,0 +1,49 @@
+package org.senegas.ledstrip.hardware;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamLedStripHardwareAdapterTest {
+
+    private static byte[] writeOneFrame(StreamLedStripHardwareAdapter.Framing framing, Path file) throws Exception {
+        LedStrip strip = LedStrip.ofLength(2);
+        strip.setPixelRgb(0, 0x112233);
+        strip.setPixelRgb(1, 0xAABBCC);
+        try (StreamLedStripHardwareAdapter adapter =
+                     new StreamLedStripHardwareAdapter(2, framing, ColorOrder.GRB, file)) {
+            adapter.apply(strip.snapshot());
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (adapter.getWrittenFrames() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+        return Files.readAllBytes(file);
+    }
+
+    @Test void adalightFrameHasHeaderChecksumAndReorderedColors() throws Exception {
+        Path file = Files.createTempFile("ledstrip", ".ada");
+        try {
+            byte[] frame = writeOneFrame(StreamLedStripHardwareAdapter.Framing.ADALIGHT, file);
+            assertArrayEquals(new byte[]{'A', 'd', 'a', 0, 1, 0x54,
+                    0x22, 0x11, 0x33, (byte) 0xBB, (byte) 0xAA, (byte) 0xCC}, frame);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test void tpm2FrameIsDelimited() throws Exception {
+        Path file = Files.createTempFile("ledstrip", ".tpm2");
+        try {
+            byte[] frame = writeOneFrame(StreamLedStripHardwareAdapter.Framing.TPM2, file);
+            assertArrayEquals(new byte[]{(byte) 0xC9, (byte) 0xDA, 0, 6,
+                    0x22, 0x11, 0x33, (byte) 0xBB, (byte) 0xAA, (byte) 0xCC, 0x36}, frame);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
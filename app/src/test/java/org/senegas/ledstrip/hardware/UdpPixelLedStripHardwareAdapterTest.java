@@ -0,0 +1,69 @@
+package org.senegas.ledstrip.hardware;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.domain.led.LedStripController;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UdpPixelLedStripHardwareAdapterTest {
+
+    private static ByteBuffer receive(DatagramChannel receiver) throws Exception {
+        ByteBuffer packet = ByteBuffer.allocate(2048);
+        receiver.receive(packet);
+        return packet.flip();
+    }
+
+    @Test void ddpSplitsStripAndPushesOnLastPacket() throws Exception {
+        try (DatagramChannel receiver = DatagramChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+             UdpPixelLedStripHardwareAdapter adapter = new UdpPixelLedStripHardwareAdapter(600,
+                     UdpPixelLedStripHardwareAdapter.Protocol.DDP,
+                     (InetSocketAddress) receiver.getLocalAddress(), 1)) {
+            LedStripController controller = new LedStripController(LedStrip.ofLength(600), adapter);
+
+            controller.fillRgb(0x102030);
+            ByteBuffer first = receive(receiver);
+            ByteBuffer second = receive(receiver);
+            assertEquals(DdpPacketEncoder.HEADER_LENGTH + 1440, first.remaining());
+            assertEquals(0x40, first.get(0));
+            assertEquals(0, first.getInt(4));
+            assertEquals(0x10, first.get(DdpPacketEncoder.HEADER_LENGTH));
+            assertEquals(0x30, first.get(DdpPacketEncoder.HEADER_LENGTH + 2));
+            assertEquals(0x41, second.get(0));
+            assertEquals(1440, second.getInt(4));
+            assertEquals(360, second.getShort(8));
+
+            // Only the packet holding the changed LED goes out, and it carries the push
+            controller.setPixelRgb(500, 0xFF0000);
+            ByteBuffer delta = receive(receiver);
+            assertEquals(0x41, delta.get(0));
+            assertEquals(1440, delta.getInt(4));
+            assertEquals((byte) 0xFF, delta.get(DdpPacketEncoder.HEADER_LENGTH + 3 * 20));
+            assertEquals(3, adapter.getSentPackets());
+        }
+    }
+
+    @Test void e131SendsOneUniversePerHundredSeventyPixels() throws Exception {
+        try (DatagramChannel receiver = DatagramChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+             UdpPixelLedStripHardwareAdapter adapter = new UdpPixelLedStripHardwareAdapter(200,
+                     UdpPixelLedStripHardwareAdapter.Protocol.E131,
+                     (InetSocketAddress) receiver.getLocalAddress(), 7)) {
+            LedStrip strip = LedStrip.ofLength(200);
+            strip.fillRgb(0x0000FF);
+            adapter.apply(strip.snapshot());
+
+            ByteBuffer first = receive(receiver);
+            ByteBuffer second = receive(receiver);
+            assertEquals(E131PacketEncoder.HEADER_LENGTH + 510, first.remaining());
+            assertEquals(7, first.getShort(113));
+            assertEquals(511, first.getShort(123));
+            assertEquals(E131PacketEncoder.HEADER_LENGTH + 90, second.remaining());
+            assertEquals(8, second.getShort(113));
+            assertEquals((byte) 0xFF, second.get(E131PacketEncoder.HEADER_LENGTH + 89));
+        }
+    }
+}
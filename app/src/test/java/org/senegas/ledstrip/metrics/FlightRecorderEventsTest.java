@@ -0,0 +1,53 @@
+package org.senegas.ledstrip.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.effect.RainbowEffect;
+import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.domain.led.LedStripController;
+import org.senegas.ledstrip.hardware.NoopAdapter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEventsTest {
+
+    @Test void controllerEmitsEventsAboveThreshold() throws Exception {
+        Path file = Files.createTempFile("ledstrip", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EffectRenderEvent.class).withThreshold(java.time.Duration.ZERO);
+            recording.enable(SnapshotEvent.class).withThreshold(java.time.Duration.ZERO);
+            recording.enable(AdapterApplyEvent.class).withThreshold(java.time.Duration.ZERO);
+            recording.start();
+
+            LedStripController controller = new LedStripController(LedStrip.ofLength(8), new NoopAdapter(),
+                    new MetricsRegistry());
+            controller.applyEffectNanos(new RainbowEffect(), 0);
+
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent render = find(events, "org.senegas.ledstrip.EffectRender");
+            assertEquals("Rainbow", render.getString("effect"));
+            assertEquals(8, render.getInt("ledCount"));
+            assertEquals(8, find(events, "org.senegas.ledstrip.Snapshot").getInt("changedLeds"));
+            assertEquals(NoopAdapter.class.getName(),
+                    find(events, "org.senegas.ledstrip.AdapterApply").getClass("adapter").getName());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " event"));
+    }
+}
@@ -0,0 +1,77 @@
+package org.senegas.ledstrip.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.effect.RainbowEffect;
+import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.domain.led.LedStripController;
+import org.senegas.ledstrip.hardware.NoopAdapter;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test void histogramBucketsStayWithinSixPercent() {
+        for (long value = 0; value < 1 << 20; value += 7) {
+            long upper = Histogram.upperBound(Histogram.bucketOf(value));
+            assertTrue(upper >= value && upper - value <= Math.max(0, value / 16), "value " + value);
+        }
+        assertEquals(Histogram.BUCKET_COUNT - 1, Histogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test void histogramReportsPercentiles() {
+        Histogram histogram = new MetricsRegistry().histogram("test");
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(1000_000, snapshot.max());
+        assertTrue(Math.abs(snapshot.p50() - 500_000) <= 500_000 / 16, "p50 " + snapshot.p50());
+        assertTrue(Math.abs(snapshot.p99() - 990_000) <= 990_000 / 16, "p99 " + snapshot.p99());
+        assertEquals(500_500.0, snapshot.mean(), 0.001);
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().count());
+    }
+
+    @Test void metricNamesAreTyped() {
+        MetricsRegistry registry = new MetricsRegistry();
+        assertSame(registry.counter("frames"), registry.counter("frames"));
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("frames"));
+    }
+
+    @Test void controllerRecordsRenderSnapshotAndAdapterTimes() {
+        MetricsRegistry registry = new MetricsRegistry();
+        LedStripController controller = new LedStripController(LedStrip.ofLength(16), new NoopAdapter(), registry);
+        RainbowEffect effect = new RainbowEffect();
+        for (int i = 0; i < 10; i++) {
+            controller.applyEffectNanos(effect, i * 20_000_000L);
+        }
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals(10, snapshot.histograms().get("effect.render").count());
+        assertEquals(10, snapshot.histograms().get("frame.snapshot").count());
+        assertEquals(10, snapshot.histograms().get("adapter.NoopAdapter.apply").count());
+    }
+
+    @Test void meterReportsRate() {
+        Meter meter = new MetricsRegistry().meter("fps");
+        for (int i = 0; i < 100; i++) {
+            meter.mark(i * 1_000_000L);
+        }
+        assertEquals(1000.0, meter.getRate(), 0.001);
+    }
+
+    @Test void publishedMetricsAreReadableOverJmx() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("jmx.test.frames").add(3);
+        registry.publishToJmx();
+        registry.histogram("jmx.test.latency").record(42);
+
+        var server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(3L, server.getAttribute(MetricsRegistry.objectName("Counter", "jmx.test.frames"), "Count"));
+        assertEquals(42L, server.getAttribute(MetricsRegistry.objectName("Histogram", "jmx.test.latency"), "Max"));
+    }
+}
@@ -0,0 +1,80 @@
+package org.senegas.ledstrip.recording;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedFrameRecordingTest {
+
+    private static int[] movingDot(int frame, int ledCount) {
+        int[] colors = new int[ledCount];
+        for (int i = 0; i < ledCount; i++) {
+            colors[i] = i <= frame % ledCount ? 0x00FF00 : 0x100000 + i;
+        }
+        return colors;
+    }
+
+    @Test void decodesAnyFrameAfterSeekingAndIsMuchSmallerThanRaw() throws Exception {
+        int ledCount = 500;
+        int frames = 200;
+        Path file = Files.createTempFile("ledstrip", ".ledz");
+        try {
+            LedStrip strip = LedStrip.ofLength(ledCount);
+            try (CompressedFrameWriter writer = new CompressedFrameWriter(file, ledCount, 32)) {
+                for (int frame = 0; frame < frames; frame++) {
+                    strip.setPixelsRgb(movingDot(frame, ledCount));
+                    writer.append(frame * 16_000_000L, strip.snapshot());
+                }
+            }
+            long raw = (long) frames * ledCount * Integer.BYTES;
+            assertTrue(Files.size(file) * 10 < raw, "compressed to " + Files.size(file) + " of " + raw);
+
+            try (CompressedFrameReader reader = new CompressedFrameReader(file)) {
+                assertEquals(frames, reader.getFrameCount());
+                assertEquals(16_000_000L * 150, reader.getTimestampNanos(150));
+                LedStrip target = LedStrip.ofLength(ledCount);
+                for (int frame : new int[]{0, 1, 2, 150, 40, 199, 33, 31}) {
+                    reader.renderFrame(frame, target);
+                    int[] expected = movingDot(frame, ledCount);
+                    for (int i = 0; i < ledCount; i++) {
+                        assertEquals(expected[i], target.getPixelRgb(i), "frame " + frame + " LED " + i);
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test void decodesRecordsShorterAndLongerThanTheirHeaderRead() throws Exception {
+        int ledCount = 64;
+        Path file = Files.createTempFile("ledstrip", ".ledz");
+        try {
+            LedStrip strip = LedStrip.ofLength(ledCount);
+            try (CompressedFrameWriter writer = new CompressedFrameWriter(file, ledCount, 32)) {
+                for (int frame = 0; frame < 10; frame++) {
+                    // Repeated frames encode to a few bytes, the others to most of the strip
+                    strip.setPixelsRgb(movingDot(frame / 2 * 7, ledCount));
+                    writer.append(frame, strip.snapshot());
+                }
+            }
+
+            try (CompressedFrameReader reader = new CompressedFrameReader(file)) {
+                LedStrip target = LedStrip.ofLength(ledCount);
+                for (int frame = 0; frame < 10; frame++) {
+                    reader.renderFrame(frame, target);
+                    int[] expected = movingDot(frame / 2 * 7, ledCount);
+                    for (int i = 0; i < ledCount; i++) {
+                        assertEquals(expected[i], target.getPixelRgb(i), "frame " + frame + " LED " + i);
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
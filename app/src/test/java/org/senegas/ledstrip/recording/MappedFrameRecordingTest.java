@@ -0,0 +1,42 @@
+package org.senegas.ledstrip.recording;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFrameRecordingTest {
+
+    @Test void replayShowsFramesAtTheirRecordedTimes() throws Exception {
+        Path file = Files.createTempFile("ledstrip", ".ledr");
+        try {
+            LedStrip strip = LedStrip.ofLength(3);
+            try (MappedFrameWriter writer = new MappedFrameWriter(file, 3)) {
+                for (int frame = 0; frame < 4; frame++) {
+                    strip.fillRgb(0x010101 * (frame + 1));
+                    writer.append(frame * 10_000_000L, strip.snapshot());
+                }
+            }
+
+            try (MappedFrameReader reader = new MappedFrameReader(file)) {
+                assertEquals(3, reader.getLedCount());
+                assertEquals(4, reader.getFrameCount());
+                assertEquals(2, reader.frameAt(25_000_000L));
+
+                ReplayEffect replay = new ReplayEffect(reader, true);
+                LedStrip target = LedStrip.ofLength(3);
+                replay.apply(target, 25);
+                assertEquals(0x030303, target.getPixelRgb(2));
+                assertEquals(30, replay.nextUpdateMillis(25));
+                // Four frames 10 ms apart loop every 40 ms
+                replay.apply(target, 45);
+                assertEquals(0x010101, target.getPixelRgb(0));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.senegas.ledstrip.recording;
+
+import org.junit.jupiter.api.Test;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayEffectTest {
+
+    /* Frames 10 ms apart, each filled with its index plus one, counting loads */
+    private static final class CountingSource implements FrameSource {
+        int rendered = 0;
+
+        @Override
+        public int getLedCount() {
+            return 2;
+        }
+
+        @Override
+        public int getFrameCount() {
+            return 3;
+        }
+
+        @Override
+        public long getTimestampNanos(int frame) {
+            return frame * 10_000_000L;
+        }
+
+        @Override
+        public void renderFrame(int frame, LedStrip strip) {
+            rendered++;
+            strip.fillRgb(frame + 1);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test void framesAreLoadedOnlyWhenTheyChange() {
+        CountingSource source = new CountingSource();
+        ReplayEffect replay = new ReplayEffect(source, false);
+        LedStrip strip = LedStrip.ofLength(2);
+
+        assertTrue(replay.apply(strip, 0));
+        assertFalse(replay.apply(strip, 4));
+        assertFalse(replay.apply(strip, 9));
+        assertEquals(1, source.rendered);
+
+        assertTrue(replay.apply(strip, 10));
+        assertEquals(2, strip.getPixelRgb(0));
+        assertEquals(2, source.rendered);
+
+        // A reset, e.g. before replaying on another strip, loads the frame again
+        replay.reset();
+        assertTrue(replay.apply(strip, 12));
+        assertEquals(3, source.rendered);
+    }
+}
@@ -0,0 +1,82 @@
+package org.senegas.ledstrip.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.senegas.ledstrip.domain.effect.RainbowEffect;
+import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.domain.led.LedStripState;
+import org.senegas.ledstrip.hardware.CompositeLedStripHardwareAdapter;
+import org.senegas.ledstrip.hardware.ConsoleLedStripHardwareAdapter;
+import org.senegas.ledstrip.hardware.LedStripHardwareAdapter;
+import org.senegas.ledstrip.hardware.NoopAdapter;
+import org.senegas.ledstrip.hardware.RecordingAdapter;
+import org.senegas.ledstrip.hardware.SwingLedStripHardwareAdapter;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * One full frame through each adapter. Console output is discarded and the
+ * Swing visualizer paints into an offscreen image, so neither measures the
+ * terminal or the screen.
+ */
+@State(Scope.Thread)
+public class AdapterBenchmark {
+
+    @Param({"console", "swing", "swing-sprites", "composite", "recording"})
+    public String adapterName;
+
+    @Param({"32", "1000"})
+    public int ledCount;
+
+    private LedStripHardwareAdapter adapter;
+    private SwingLedStripHardwareAdapter swing;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private LedStripState state;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        LedStrip strip = LedStrip.ofLength(ledCount);
+        new RainbowEffect().apply(strip, 0);
+        state = strip.snapshot();
+
+        switch (adapterName) {
+            case "console" -> adapter = new ConsoleLedStripHardwareAdapter();
+            case "swing", "swing-sprites" -> {
+                swing = new SwingLedStripHardwareAdapter(ledCount, adapterName.equals("swing")
+                        ? SwingLedStripHardwareAdapter.RenderMode.VECTOR
+                        : SwingLedStripHardwareAdapter.RenderMode.SPRITES);
+                swing.setSize(swing.getPreferredSize());
+                image = new BufferedImage(swing.getWidth(), swing.getHeight(), BufferedImage.TYPE_INT_RGB);
+                graphics = image.createGraphics();
+                adapter = swing;
+            }
+            case "composite" -> adapter = new CompositeLedStripHardwareAdapter(
+                    new NoopAdapter(), new RecordingAdapter(), new NoopAdapter());
+            case "recording" -> adapter = new RecordingAdapter();
+            default -> throw new IllegalArgumentException("Unknown adapter " + adapterName);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (graphics != null) {
+            graphics.dispose();
+        }
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void applyFrame() {
+        adapter.apply(state);
+        if (swing != null) {
+            swing.paint(graphics);
+        }
+    }
+}
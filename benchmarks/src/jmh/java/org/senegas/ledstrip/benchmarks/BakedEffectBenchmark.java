@@ -0,0 +1,49 @@
+package org.senegas.ledstrip.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.senegas.ledstrip.domain.effect.BakedEffect;
+import org.senegas.ledstrip.domain.effect.BakedFrameCache;
+import org.senegas.ledstrip.domain.effect.DefaultEffectRegistry;
+import org.senegas.ledstrip.domain.effect.PeriodicEffect;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+/**
+ * One frame of each periodic effect played from its baked cycle, to compare
+ * with the live numbers of {@link EffectBenchmark}. Baking happens in setup.
+ */
+@State(Scope.Thread)
+public class BakedEffectBenchmark {
+
+    private static final long FRAME_MILLIS = 40;
+
+    @Param({"Rainbow", "Breath", "Running Lights"})
+    public String effectName;
+
+    @Param({"32", "1000", "100000"})
+    public int ledCount;
+
+    private BakedEffect effect;
+    private LedStrip strip;
+    private long timeMillis;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PeriodicEffect source = new DefaultEffectRegistry().availableEffects().stream()
+                .filter(e -> e.getName().equals(effectName))
+                .map(PeriodicEffect.class::cast)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown effect " + effectName));
+        effect = new BakedEffect(source,
+                new BakedFrameCache(256L << 20, BakedFrameCache.Storage.OFF_HEAP),
+                BakedEffect.DEFAULT_SAMPLE_MILLIS);
+        strip = LedStrip.ofLength(ledCount);
+        timeMillis = 0;
+        effect.prebake(ledCount);
+    }
+
+    @Benchmark
+    public boolean applyFrame() {
+        timeMillis += FRAME_MILLIS;
+        return effect.apply(strip, timeMillis);
+    }
+}
@@ -0,0 +1,42 @@
+package org.senegas.ledstrip.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.senegas.ledstrip.domain.color.PackedRgb;
+import org.senegas.ledstrip.domain.color.RgbColor;
+
+/**
+ * Object-based color blending against the packed fixed-point equivalent.
+ */
+@State(Scope.Thread)
+public class ColorBenchmark {
+
+    private final RgbColor from = new RgbColor(250, 10, 30);
+    private final RgbColor to = new RgbColor(5, 120, 240);
+    private final int fromRgb = from.toPackedRgb();
+    private final int toRgb = to.toPackedRgb();
+    private int step;
+
+    @Benchmark
+    public RgbColor rgbColorBlend() {
+        step = (step + 1) & 0xFF;
+        return from.blend(to, step / 255.0);
+    }
+
+    @Benchmark
+    public RgbColor rgbColorWithBrightness() {
+        step = (step + 1) & 0xFF;
+        return from.withBrightness(step / 255.0);
+    }
+
+    @Benchmark
+    public int packedBlend8() {
+        step = (step + 1) & 0xFF;
+        return PackedRgb.blend8(fromRgb, toRgb, step);
+    }
+
+    @Benchmark
+    public int packedScale8() {
+        step = (step + 1) & 0xFF;
+        return PackedRgb.scale8(fromRgb, step);
+    }
+}
@@ -0,0 +1,44 @@
+package org.senegas.ledstrip.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.senegas.ledstrip.domain.effect.AbstractEffect;
+import org.senegas.ledstrip.domain.effect.DefaultEffectRegistry;
+import org.senegas.ledstrip.domain.led.LedStrip;
+
+/**
+ * One frame of each registered effect, at several strip lengths.
+ * Time advances by a 40 ms frame per invocation so step-based effects step.
+ */
+@State(Scope.Thread)
+public class EffectBenchmark {
+
+    private static final long FRAME_MILLIS = 40;
+
+    @Param({"Moving Dot", "Ping-Pong Dot", "Dual Bouncing Dots", "Rainbow",
+            "Breath", "Color Wipe", "Running Lights", "Rainbow + Dot"})
+    public String effectName;
+
+    @Param({"32", "1000", "100000"})
+    public int ledCount;
+
+    private AbstractEffect effect;
+    private LedStrip strip;
+    private long timeMillis;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        effect = new DefaultEffectRegistry().availableEffects().stream()
+                .filter(e -> e.getName().equals(effectName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown effect " + effectName));
+        effect.reset();
+        strip = LedStrip.ofLength(ledCount);
+        timeMillis = 0;
+    }
+
+    @Benchmark
+    public boolean applyFrame() {
+        timeMillis += FRAME_MILLIS;
+        return effect.apply(strip, timeMillis);
+    }
+}
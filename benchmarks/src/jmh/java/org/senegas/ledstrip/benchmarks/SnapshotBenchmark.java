@@ -0,0 +1,62 @@
+package org.senegas.ledstrip.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.senegas.ledstrip.domain.effect.RainbowEffect;
+import org.senegas.ledstrip.domain.led.LedStrip;
+import org.senegas.ledstrip.domain.led.LedStripController;
+import org.senegas.ledstrip.domain.led.LedStripState;
+import org.senegas.ledstrip.hardware.NoopAdapter;
+
+/**
+ * Cost of getting a frame out of a strip: unpooled snapshots, pooled
+ * publishing through the controller, and reading frames back.
+ */
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+
+    @Param({"32", "1000", "100000"})
+    public int ledCount;
+
+    private LedStrip strip;
+    private LedStripController controller;
+    private LedStripState state;
+    private int[] pixels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        strip = LedStrip.ofLength(ledCount);
+        new RainbowEffect().apply(strip, 0);
+        controller = new LedStripController(strip, new NoopAdapter());
+        state = strip.snapshot();
+        pixels = new int[ledCount];
+    }
+
+    @Benchmark
+    public LedStripState snapshot() {
+        return strip.snapshot();
+    }
+
+    @Benchmark
+    public void publishPooled() {
+        controller.publish();
+    }
+
+    @Benchmark
+    public Object stateToArray() {
+        return state.toArray();
+    }
+
+    @Benchmark
+    public int[] stateCopyTo() {
+        state.copyTo(pixels);
+        return pixels;
+    }
+
+    @Benchmark
+    public void stateColorAt(Blackhole blackhole) {
+        for (int i = 0; i < ledCount; i++) {
+            blackhole.consume(state.getColorAt(i));
+        }
+    }
+}